@@ -1,7 +1,18 @@
 package com.skipfeed.android
 
 import android.app.Application
+import coil.ImageLoader
+import coil.ImageLoaderFactory
 import dagger.hilt.android.HiltAndroidApp
+import javax.inject.Inject
+import javax.inject.Provider
 
 @HiltAndroidApp
-class SkipFeedApplication : Application()
+class SkipFeedApplication : Application(), ImageLoaderFactory {
+
+    @Inject
+    lateinit var imageLoader: Provider<ImageLoader>
+
+    // Makes the Hilt-configured loader the one AsyncImage and context.imageLoader use.
+    override fun newImageLoader(): ImageLoader = imageLoader.get()
+}
@@ -0,0 +1,78 @@
+package com.skipfeed.android.data.api
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.os.BatteryManager
+import android.os.PowerManager
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Opens the pooled connection to reddit.com ahead of the first search, so DNS, TCP and
+ * TLS are already paid when the user submits a query.
+ *
+ * A warm-up is a tiny asynchronous HEAD on the shared client; the response is discarded
+ * and the connection stays in the pool for the search that follows. It is skipped on
+ * metered networks, in battery saver, on low battery, while one is already running, and
+ * within [MIN_INTERVAL_MILLIS] of the last one, since the pool keeps the connection alive.
+ */
+@Singleton
+class ConnectionWarmer @Inject constructor(
+    private val okHttpClient: OkHttpClient,
+    private val context: Context
+) {
+
+    private val inFlight = AtomicBoolean(false)
+    private val lastWarmedAtMillis = AtomicLong(0L)
+
+    fun warm() {
+        val now = System.currentTimeMillis()
+        if (now - lastWarmedAtMillis.get() < MIN_INTERVAL_MILLIS) return
+        if (!shouldWarm()) return
+        if (!inFlight.compareAndSet(false, true)) return
+        lastWarmedAtMillis.set(now)
+
+        val request = Request.Builder()
+            .url(WARM_URL)
+            .head()
+            .build()
+        okHttpClient.newCall(request).enqueue(object : Callback {
+            override fun onResponse(call: Call, response: Response) {
+                response.close()
+                inFlight.set(false)
+            }
+
+            override fun onFailure(call: Call, e: IOException) {
+                // Nothing to warm; let the next trigger try again.
+                lastWarmedAtMillis.set(0L)
+                inFlight.set(false)
+            }
+        })
+    }
+
+    private fun shouldWarm(): Boolean {
+        val connectivityManager = context.getSystemService(ConnectivityManager::class.java)
+        if (connectivityManager == null || connectivityManager.isActiveNetworkMetered) return false
+
+        val powerManager = context.getSystemService(PowerManager::class.java)
+        if (powerManager?.isPowerSaveMode == true) return false
+
+        val batteryManager = context.getSystemService(BatteryManager::class.java) ?: return true
+        val level = batteryManager.getIntProperty(BatteryManager.BATTERY_PROPERTY_CAPACITY)
+        return batteryManager.isCharging || level <= 0 || level >= LOW_BATTERY_PERCENT
+    }
+
+    companion object {
+        private const val WARM_URL = "https://www.reddit.com/robots.txt"
+        private const val MIN_INTERVAL_MILLIS = 60_000L
+        private const val LOW_BATTERY_PERCENT = 20
+    }
+}
@@ -0,0 +1,197 @@
+package com.skipfeed.android.data.api
+
+import okhttp3.Call
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.Handshake
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Phase timings of one finished HTTP call, in milliseconds. A phase that did not happen
+ * (DNS and connect on a reused connection, TLS over plain HTTP) is -1.
+ */
+data class CallTiming(
+    val method: String,
+    val path: String,
+    val startedAtMillis: Long,
+    val dnsMs: Long,
+    val connectMs: Long,
+    val tlsMs: Long,
+    val ttfbMs: Long,
+    val bodyMs: Long,
+    val totalMs: Long,
+    val bytes: Long,
+    val connectionReused: Boolean,
+    val cacheHit: Boolean,
+    val protocol: String?,
+    val code: Int?,
+    val failure: String?
+)
+
+/** Fixed-size ring buffer of the most recent [CallTiming]s, for the in-app debug view. */
+@Singleton
+class NetworkTimingLog @Inject constructor() {
+
+    private val entries = arrayOfNulls<CallTiming>(CAPACITY)
+    private var next = 0
+    private var count = 0
+
+    @Synchronized
+    fun record(timing: CallTiming) {
+        entries[next] = timing
+        next = (next + 1) % CAPACITY
+        if (count < CAPACITY) count++
+    }
+
+    /** Recorded calls, newest first. */
+    @Synchronized
+    fun snapshot(): List<CallTiming> {
+        return List(count) { i -> entries[(next - 1 - i + CAPACITY) % CAPACITY]!! }
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.fill(null)
+        next = 0
+        count = 0
+    }
+
+    companion object {
+        const val CAPACITY = 100
+    }
+}
+
+/**
+ * Records DNS, connect, TLS, time-to-first-byte and body-read durations of every call
+ * into [NetworkTimingLog]. TTFB runs from the request being written to the response
+ * headers arriving, so it isolates server and network latency from connection setup.
+ */
+class NetworkTimingEventListener private constructor(
+    private val log: NetworkTimingLog
+) : EventListener() {
+
+    private var callStart = 0L
+    private var startedAtMillis = 0L
+    private var dnsStart = 0L
+    private var dnsMs = -1L
+    private var connectStart = 0L
+    private var connectMs = -1L
+    private var tlsStart = 0L
+    private var tlsMs = -1L
+    private var requestSent = 0L
+    private var ttfbMs = -1L
+    private var bodyStart = 0L
+    private var bodyMs = -1L
+    private var bytes = 0L
+    private var cacheHit = false
+    private var protocol: Protocol? = null
+    private var code: Int? = null
+
+    override fun callStart(call: Call) {
+        callStart = System.nanoTime()
+        startedAtMillis = System.currentTimeMillis()
+    }
+
+    override fun dnsStart(call: Call, domainName: String) {
+        dnsStart = System.nanoTime()
+    }
+
+    override fun dnsEnd(call: Call, domainName: String, inetAddressList: List<InetAddress>) {
+        dnsMs = elapsedMs(dnsStart)
+    }
+
+    override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+        connectStart = System.nanoTime()
+    }
+
+    override fun secureConnectStart(call: Call) {
+        tlsStart = System.nanoTime()
+    }
+
+    override fun secureConnectEnd(call: Call, handshake: Handshake?) {
+        tlsMs = elapsedMs(tlsStart)
+    }
+
+    override fun connectEnd(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy, protocol: Protocol?) {
+        connectMs = elapsedMs(connectStart)
+    }
+
+    override fun connectionAcquired(call: Call, connection: Connection) {
+        protocol = connection.protocol()
+    }
+
+    override fun requestHeadersEnd(call: Call, request: Request) {
+        requestSent = System.nanoTime()
+    }
+
+    override fun requestBodyEnd(call: Call, byteCount: Long) {
+        requestSent = System.nanoTime()
+    }
+
+    override fun responseHeadersStart(call: Call) {
+        if (requestSent != 0L) ttfbMs = elapsedMs(requestSent)
+    }
+
+    override fun responseHeadersEnd(call: Call, response: Response) {
+        code = response.code
+    }
+
+    override fun responseBodyStart(call: Call) {
+        bodyStart = System.nanoTime()
+    }
+
+    override fun responseBodyEnd(call: Call, byteCount: Long) {
+        bodyMs = elapsedMs(bodyStart)
+        bytes += byteCount
+    }
+
+    override fun cacheHit(call: Call, response: Response) {
+        cacheHit = true
+        code = response.code
+    }
+
+    override fun callEnd(call: Call) {
+        record(call, null)
+    }
+
+    override fun callFailed(call: Call, ioe: IOException) {
+        record(call, ioe.message ?: ioe.javaClass.simpleName)
+    }
+
+    private fun record(call: Call, failure: String?) {
+        val request = call.request()
+        log.record(
+            CallTiming(
+                method = request.method,
+                path = request.url.encodedPath,
+                startedAtMillis = startedAtMillis,
+                dnsMs = dnsMs,
+                connectMs = connectMs,
+                tlsMs = tlsMs,
+                ttfbMs = ttfbMs,
+                bodyMs = bodyMs,
+                totalMs = elapsedMs(callStart),
+                bytes = bytes,
+                connectionReused = !cacheHit && connectStart == 0L,
+                cacheHit = cacheHit,
+                protocol = protocol?.toString(),
+                code = code,
+                failure = failure
+            )
+        )
+    }
+
+    private fun elapsedMs(startNanos: Long): Long = (System.nanoTime() - startNanos) / 1_000_000
+
+    class Factory(private val log: NetworkTimingLog) : EventListener.Factory {
+        override fun create(call: Call): EventListener = NetworkTimingEventListener(log)
+    }
+}
@@ -1,9 +1,14 @@
 package com.skipfeed.android.data.api
 
+import com.skipfeed.android.data.model.RedditCommentThread
+import com.skipfeed.android.data.model.RedditMoreChildren
 import com.skipfeed.android.data.model.RedditResponse
 import retrofit2.Response
 import retrofit2.http.GET
+import retrofit2.http.Header
 import retrofit2.http.Query
+import retrofit2.http.Tag
+import retrofit2.http.Url
 
 interface RedditApiService {
     
@@ -14,7 +19,9 @@ interface RedditApiService {
         @Query("t") timeFilter: String = "all",
         @Query("limit") limit: Int = 25,
         @Query("after") after: String? = null,
-        @Query("raw_json") rawJson: Int = 1
+        @Query("raw_json") rawJson: Int = 1,
+        @Header("Cache-Control") cacheControl: String? = null,
+        @Tag priority: RequestPriority = RequestPriority.USER
     ): Response<RedditResponse>
     
     @GET("r/{subreddit}/search.json")
@@ -26,6 +33,29 @@ interface RedditApiService {
         @Query("limit") limit: Int = 25,
         @Query("after") after: String? = null,
         @Query("restrict_sr") restrictSr: Int = 1,
-        @Query("raw_json") rawJson: Int = 1
+        @Query("raw_json") rawJson: Int = 1,
+        @Header("Cache-Control") cacheControl: String? = null,
+        @Tag priority: RequestPriority = RequestPriority.USER
     ): Response<RedditResponse>
+    
+    /** [path] is a post permalink plus ".json"; [comment] narrows it to one comment's subtree. */
+    @GET
+    suspend fun getCommentThread(
+        @Url path: String,
+        @Query("comment") comment: String? = null,
+        @Query("sort") sort: String = "confidence",
+        @Query("limit") limit: Int = 200,
+        @Query("raw_json") rawJson: Int = 1,
+        @Tag priority: RequestPriority = RequestPriority.USER
+    ): Response<RedditCommentThread>
+    
+    @GET("api/morechildren.json")
+    suspend fun getMoreComments(
+        @Query("link_id") linkId: String,
+        @Query("children") children: String,
+        @Query("sort") sort: String = "confidence",
+        @Query("api_type") apiType: String = "json",
+        @Query("raw_json") rawJson: Int = 1,
+        @Tag priority: RequestPriority = RequestPriority.USER
+    ): Response<RedditMoreChildren>
 }
@@ -0,0 +1,68 @@
+package com.skipfeed.android.data.api
+
+import com.skipfeed.android.data.model.RedditSort
+import com.skipfeed.android.data.model.RedditTimeFilter
+import okhttp3.Interceptor
+import okhttp3.Response
+
+/**
+ * Freshness rules for cached Reddit search listings.
+ *
+ * Reddit marks listings as uncacheable, so [RedditCacheInterceptor] rewrites the
+ * Cache-Control of `search.json` responses before they reach the disk cache. How long
+ * a listing counts as fresh depends on how quickly that sort order changes upstream.
+ */
+object RedditCachePolicy {
+
+    /** Cached listings older than this are never served, not even while revalidating. */
+    const val MAX_STALE_SECONDS = 24 * 60 * 60
+
+    /** Request header value for "answer from disk or fail with 504". */
+    const val CACHE_ONLY = "only-if-cached, max-stale=$MAX_STALE_SECONDS"
+
+    /** Request header value for "skip any cached copy and ask Reddit". */
+    const val FORCE_NETWORK = "no-cache"
+
+    const val DISK_CACHE_SIZE_BYTES = 20L * 1024 * 1024
+
+    fun freshnessSeconds(sort: RedditSort, timeFilter: RedditTimeFilter): Int {
+        return when (sort) {
+            RedditSort.NEW -> 60
+            RedditSort.HOT -> 5 * 60
+            RedditSort.RELEVANCE, RedditSort.COMMENTS -> 10 * 60
+            RedditSort.TOP -> when (timeFilter) {
+                RedditTimeFilter.HOUR -> 5 * 60
+                RedditTimeFilter.DAY -> 15 * 60
+                else -> 60 * 60
+            }
+        }
+    }
+
+    fun isSearchPath(encodedPath: String): Boolean = encodedPath.endsWith("/search.json")
+}
+
+/** Network interceptor that makes search listings cacheable for their sort's freshness window. */
+class RedditCacheInterceptor : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val response = chain.proceed(request)
+        if (request.method != "GET" || !response.isSuccessful ||
+            !RedditCachePolicy.isSearchPath(request.url.encodedPath)
+        ) {
+            return response
+        }
+
+        val sort = RedditSort.entries.find { it.value == request.url.queryParameter("sort") }
+            ?: RedditSort.RELEVANCE
+        val timeFilter = RedditTimeFilter.entries.find { it.value == request.url.queryParameter("t") }
+            ?: RedditTimeFilter.ALL
+        val maxAge = RedditCachePolicy.freshnessSeconds(sort, timeFilter)
+
+        return response.newBuilder()
+            .removeHeader("Pragma")
+            .removeHeader("Expires")
+            .header("Cache-Control", "public, max-age=$maxAge")
+            .build()
+    }
+}
@@ -0,0 +1,203 @@
+package com.skipfeed.android.data.api
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.skipfeed.android.data.model.RedditCommentItem
+import com.skipfeed.android.data.model.RedditCommentThread
+import com.skipfeed.android.data.model.RedditMoreChildren
+import okhttp3.ResponseBody
+import retrofit2.Converter
+import retrofit2.Retrofit
+import java.io.Reader
+import java.lang.reflect.Type
+
+/**
+ * Pull-parser for comment JSON (`{permalink}.json` and `api/morechildren.json`).
+ *
+ * The nested `replies` listings are flattened while they stream past: a comment's row
+ * is reserved when its object opens, its replies are appended behind it, and the row
+ * is filled in when the object closes. The result is one flat list in display order,
+ * so a thread of thousands of comments never exists as a tree of nested objects.
+ */
+object RedditCommentDecoder {
+
+    /** `{permalink}.json` is `[post listing, comment listing]`; only the second is read. */
+    fun decodeThread(reader: Reader): RedditCommentThread {
+        val json = JsonReader(reader)
+        val items = ArrayList<RedditCommentItem>(256)
+
+        json.beginArray()
+        if (json.hasNext()) json.skipValue()
+        if (json.hasNext()) readListing(json, depth = 0, items)
+        while (json.hasNext()) json.skipValue()
+        json.endArray()
+
+        return RedditCommentThread(items)
+    }
+
+    /** `{"json": {"data": {"things": [...]}}}`; things arrive flat, with empty `replies`. */
+    fun decodeMoreChildren(reader: Reader): RedditMoreChildren {
+        val json = JsonReader(reader)
+        val items = ArrayList<RedditCommentItem>(100)
+
+        json.beginObject()
+        while (json.hasNext()) {
+            if (json.nextName() != "json") {
+                json.skipValue()
+                continue
+            }
+            json.beginObject()
+            while (json.hasNext()) {
+                if (json.nextName() != "data" || json.peek() != JsonToken.BEGIN_OBJECT) {
+                    json.skipValue()
+                    continue
+                }
+                json.beginObject()
+                while (json.hasNext()) {
+                    if (json.nextName() == "things") readThings(json, depth = 0, items) else json.skipValue()
+                }
+                json.endObject()
+            }
+            json.endObject()
+        }
+        json.endObject()
+
+        return RedditMoreChildren(items)
+    }
+
+    // A listing object: {"kind": "Listing", "data": {"children": [...]}}.
+    private fun readListing(json: JsonReader, depth: Int, out: MutableList<RedditCommentItem>) {
+        json.beginObject()
+        while (json.hasNext()) {
+            if (json.nextName() != "data") {
+                json.skipValue()
+                continue
+            }
+            json.beginObject()
+            while (json.hasNext()) {
+                if (json.nextName() == "children") readThings(json, depth, out) else json.skipValue()
+            }
+            json.endObject()
+        }
+        json.endObject()
+    }
+
+    private fun readThings(json: JsonReader, depth: Int, out: MutableList<RedditCommentItem>) {
+        json.beginArray()
+        while (json.hasNext()) {
+            var kind: String? = null
+            json.beginObject()
+            while (json.hasNext()) {
+                when (json.nextName()) {
+                    "kind" -> kind = json.nextStringOrNull()
+                    "data" -> readThing(json, kind, depth, out)
+                    else -> json.skipValue()
+                }
+            }
+            json.endObject()
+        }
+        json.endArray()
+    }
+
+    private fun readThing(json: JsonReader, kind: String?, depth: Int, out: MutableList<RedditCommentItem>) {
+        val row = out.size
+        out.add(PLACEHOLDER)
+
+        var id: String? = null
+        var parentId = ""
+        var author = ""
+        var body = ""
+        var score = 0
+        var created = 0.0
+        var count = 0
+        var childIds: List<String>? = null
+
+        json.beginObject()
+        while (json.hasNext()) {
+            when (json.nextName()) {
+                "id" -> id = json.nextStringOrNull()
+                "parent_id" -> parentId = json.nextStringOrNull().orEmpty()
+                "author" -> author = json.nextStringOrNull().orEmpty()
+                "body" -> body = json.nextStringOrNull().orEmpty()
+                "score" -> score = json.nextIntOrZero()
+                "created_utc" -> created = json.nextDoubleOrZero()
+                "count" -> count = json.nextIntOrZero()
+                "children" -> childIds = readIds(json)
+                // An empty string when there are none, a listing otherwise.
+                "replies" -> if (json.peek() == JsonToken.BEGIN_OBJECT) {
+                    readListing(json, depth + 1, out)
+                } else {
+                    json.skipValue()
+                }
+                else -> json.skipValue()
+            }
+        }
+        json.endObject()
+
+        if (id == null) {
+            out.subList(row, out.size).clear()
+            return
+        }
+        out[row] = if (kind == "more" || (kind == null && childIds != null)) {
+            RedditCommentItem.More(
+                // "Continue this thread" stubs all share the id "_"; key them by parent instead.
+                id = if (id == "_") "more_$parentId" else "more_$id",
+                parentId = parentId,
+                depth = depth,
+                count = count,
+                childIds = childIds.orEmpty()
+            )
+        } else {
+            RedditCommentItem.Comment(
+                id = id,
+                parentId = parentId,
+                depth = depth,
+                author = author,
+                body = body,
+                score = score,
+                created = created,
+                descendantCount = out.size - row - 1
+            )
+        }
+    }
+
+    private fun readIds(json: JsonReader): List<String> {
+        if (json.peek() != JsonToken.BEGIN_ARRAY) {
+            json.skipValue()
+            return emptyList()
+        }
+        val ids = ArrayList<String>()
+        json.beginArray()
+        while (json.hasNext()) {
+            json.nextStringOrNull()?.let { ids.add(it) }
+        }
+        json.endArray()
+        return ids
+    }
+
+    private val PLACEHOLDER = RedditCommentItem.More(id = "", parentId = "", depth = 0, count = 0, childIds = emptyList())
+}
+
+/** Retrofit converter for [RedditCommentThread] and [RedditMoreChildren] bodies. */
+class RedditCommentConverterFactory private constructor() : Converter.Factory() {
+
+    override fun responseBodyConverter(
+        type: Type,
+        annotations: Array<out Annotation>,
+        retrofit: Retrofit
+    ): Converter<ResponseBody, *>? {
+        return when (type) {
+            RedditCommentThread::class.java -> Converter<ResponseBody, RedditCommentThread> { body ->
+                body.use { RedditCommentDecoder.decodeThread(it.charStream()) }
+            }
+            RedditMoreChildren::class.java -> Converter<ResponseBody, RedditMoreChildren> { body ->
+                body.use { RedditCommentDecoder.decodeMoreChildren(it.charStream()) }
+            }
+            else -> null
+        }
+    }
+
+    companion object {
+        fun create(): RedditCommentConverterFactory = RedditCommentConverterFactory()
+    }
+}
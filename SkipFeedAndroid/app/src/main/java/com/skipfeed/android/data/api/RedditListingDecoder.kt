@@ -0,0 +1,303 @@
+package com.skipfeed.android.data.api
+
+import com.google.gson.stream.JsonReader
+import com.google.gson.stream.JsonToken
+import com.skipfeed.android.data.model.RedditChild
+import com.skipfeed.android.data.model.RedditImage
+import com.skipfeed.android.data.model.RedditImageSource
+import com.skipfeed.android.data.model.ListingDecodeStats
+import com.skipfeed.android.data.model.RedditListing
+import com.skipfeed.android.data.model.RedditPost
+import com.skipfeed.android.data.model.RedditPreview
+import com.skipfeed.android.data.model.RedditResponse
+import okhttp3.ResponseBody
+import retrofit2.Converter
+import retrofit2.Retrofit
+import java.io.Reader
+import java.lang.reflect.Type
+
+/**
+ * Pull-parser for Reddit listing JSON (`search.json`, `r/{subreddit}/search.json`).
+ *
+ * Reads straight from the response stream through a fixed-size [JsonReader] buffer,
+ * so the body is never held as one String and no reflection is involved. Only the
+ * fields the post list and detail dialog read are materialised; everything else
+ * (awards, flair, media embeds, preview variants...) is skipped token by token.
+ */
+object RedditListingDecoder {
+
+    fun decode(reader: Reader): RedditResponse {
+        val counter = Counter()
+        val json = JsonReader(reader)
+        var listing: RedditListing? = null
+
+        json.beginObject()
+        while (json.hasNext()) {
+            if (json.nextName() == "data") {
+                listing = readListing(json, counter)
+            } else {
+                counter.skip(json)
+            }
+        }
+        json.endObject()
+
+        // Returned with the listing rather than kept globally, since subreddit fan-out
+        // decodes several listings at once.
+        return RedditResponse(
+            data = listing ?: RedditListing(emptyList(), null),
+            decodeStats = ListingDecodeStats(counter.posts, counter.skipped, counter.retainedChars)
+        )
+    }
+
+    private fun readListing(json: JsonReader, counter: Counter): RedditListing {
+        var children: List<RedditChild> = emptyList()
+        var after: String? = null
+
+        json.beginObject()
+        while (json.hasNext()) {
+            when (json.nextName()) {
+                "children" -> children = readChildren(json, counter)
+                "after" -> after = json.nextStringOrNull()
+                else -> counter.skip(json)
+            }
+        }
+        json.endObject()
+        return RedditListing(children, after)
+    }
+
+    private fun readChildren(json: JsonReader, counter: Counter): List<RedditChild> {
+        val children = ArrayList<RedditChild>(100)
+        json.beginArray()
+        while (json.hasNext()) {
+            var post: RedditPost? = null
+            json.beginObject()
+            while (json.hasNext()) {
+                if (json.nextName() == "data") {
+                    post = readPost(json, counter)
+                } else {
+                    counter.skip(json)
+                }
+            }
+            json.endObject()
+            if (post != null) {
+                children.add(RedditChild(post))
+                counter.posts++
+            }
+        }
+        json.endArray()
+        return children
+    }
+
+    private fun readPost(json: JsonReader, counter: Counter): RedditPost? {
+        var id: String? = null
+        var title = ""
+        var author = ""
+        var subreddit = ""
+        var score = 0
+        var numComments = 0
+        var created = 0.0
+        var url = ""
+        var permalink = ""
+        var selftext: String? = null
+        var thumbnail: String? = null
+        var preview: RedditPreview? = null
+        var isVideo = false
+
+        json.beginObject()
+        while (json.hasNext()) {
+            when (json.nextName()) {
+                "id" -> id = json.nextStringOrNull()
+                "title" -> title = json.nextStringOrNull().orEmpty()
+                "author" -> author = json.nextStringOrNull().orEmpty()
+                "subreddit" -> subreddit = json.nextStringOrNull().orEmpty()
+                "score" -> score = json.nextIntOrZero()
+                "num_comments" -> numComments = json.nextIntOrZero()
+                "created_utc" -> created = json.nextDoubleOrZero()
+                "url" -> url = json.nextStringOrNull().orEmpty()
+                "permalink" -> permalink = json.nextStringOrNull().orEmpty()
+                "selftext" -> selftext = json.nextStringOrNull()?.takeIf { it.isNotEmpty() }
+                "thumbnail" -> thumbnail = json.nextStringOrNull()
+                "preview" -> preview = readPreview(json, counter)
+                "is_video" -> isVideo = json.nextBooleanOrFalse()
+                else -> counter.skip(json)
+            }
+        }
+        json.endObject()
+
+        counter.retainedChars += title.length + (selftext?.length ?: 0)
+        return id?.let {
+            RedditPost(
+                id = it,
+                title = title,
+                author = author,
+                subreddit = subreddit,
+                score = score,
+                numComments = numComments,
+                created = created,
+                url = url,
+                permalink = permalink,
+                selftext = selftext,
+                thumbnail = thumbnail,
+                preview = preview,
+                isVideo = isVideo
+            )
+        }
+    }
+
+    private fun readPreview(json: JsonReader, counter: Counter): RedditPreview? {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull()
+            return null
+        }
+        var images: List<RedditImage> = emptyList()
+        json.beginObject()
+        while (json.hasNext()) {
+            if (json.nextName() == "images") {
+                images = readFirstImage(json, counter)
+            } else {
+                counter.skip(json)
+            }
+        }
+        json.endObject()
+        return RedditPreview(images)
+    }
+
+    /** Keeps only `images[0]` source and resolutions; variants and further images are skipped. */
+    private fun readFirstImage(json: JsonReader, counter: Counter): List<RedditImage> {
+        var first: RedditImage? = null
+        json.beginArray()
+        while (json.hasNext()) {
+            if (first != null) {
+                counter.skip(json)
+                continue
+            }
+            var source: RedditImageSource? = null
+            var resolutions: List<RedditImageSource> = emptyList()
+            json.beginObject()
+            while (json.hasNext()) {
+                when (json.nextName()) {
+                    "source" -> source = readImageSource(json)
+                    "resolutions" -> resolutions = readResolutions(json)
+                    else -> counter.skip(json)
+                }
+            }
+            json.endObject()
+            first = source?.let { RedditImage(it, resolutions) }
+        }
+        json.endArray()
+        return listOfNotNull(first)
+    }
+
+    private fun readResolutions(json: JsonReader): List<RedditImageSource> {
+        val resolutions = ArrayList<RedditImageSource>(6)
+        json.beginArray()
+        while (json.hasNext()) {
+            resolutions.add(readImageSource(json))
+        }
+        json.endArray()
+        resolutions.sortBy { it.width }
+        return resolutions
+    }
+
+    private fun readImageSource(json: JsonReader): RedditImageSource {
+        var url = ""
+        var width = 0
+        var height = 0
+        json.beginObject()
+        while (json.hasNext()) {
+            when (json.nextName()) {
+                "url" -> url = json.nextStringOrNull().orEmpty()
+                "width" -> width = json.nextIntOrZero()
+                "height" -> height = json.nextIntOrZero()
+                else -> json.skipValue()
+            }
+        }
+        json.endObject()
+        // Preview URLs arrive HTML-escaped; unescape once here rather than on every read.
+        return RedditImageSource(url.replace("&amp;", "&"), width, height)
+    }
+
+    private class Counter {
+        var posts = 0
+        var skipped = 0
+        var retainedChars = 0L
+
+        fun skip(json: JsonReader) {
+            json.skipValue()
+            skipped++
+        }
+    }
+}
+
+internal fun JsonReader.nextStringOrNull(): String? {
+    return if (peek() == JsonToken.NULL) {
+        nextNull()
+        null
+    } else {
+        nextString()
+    }
+}
+
+internal fun JsonReader.nextIntOrZero(): Int {
+    return when (peek()) {
+        JsonToken.NUMBER -> nextDouble().toInt()
+        JsonToken.NULL -> {
+            nextNull()
+            0
+        }
+        else -> {
+            skipValue()
+            0
+        }
+    }
+}
+
+internal fun JsonReader.nextDoubleOrZero(): Double {
+    return when (peek()) {
+        JsonToken.NUMBER -> nextDouble()
+        JsonToken.NULL -> {
+            nextNull()
+            0.0
+        }
+        else -> {
+            skipValue()
+            0.0
+        }
+    }
+}
+
+internal fun JsonReader.nextBooleanOrFalse(): Boolean {
+    return when (peek()) {
+        JsonToken.BOOLEAN -> nextBoolean()
+        JsonToken.NULL -> {
+            nextNull()
+            false
+        }
+        else -> {
+            skipValue()
+            false
+        }
+    }
+}
+
+/**
+ * Retrofit converter that hands [RedditResponse] bodies to [RedditListingDecoder]
+ * instead of buffering them for a reflective converter.
+ */
+class RedditListingConverterFactory private constructor() : Converter.Factory() {
+
+    override fun responseBodyConverter(
+        type: Type,
+        annotations: Array<out Annotation>,
+        retrofit: Retrofit
+    ): Converter<ResponseBody, *>? {
+        if (type != RedditResponse::class.java) return null
+        return Converter<ResponseBody, RedditResponse> { body ->
+            body.use { RedditListingDecoder.decode(it.charStream()) }
+        }
+    }
+
+    companion object {
+        fun create(): RedditListingConverterFactory = RedditListingConverterFactory()
+    }
+}
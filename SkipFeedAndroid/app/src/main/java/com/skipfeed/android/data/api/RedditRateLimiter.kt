@@ -0,0 +1,241 @@
+package com.skipfeed.android.data.api
+
+import okhttp3.Interceptor
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.concurrent.withLock
+import kotlin.random.Random
+
+/** Scheduling class of a Reddit API call, attached to the request with Retrofit's `@Tag`. */
+enum class RequestPriority {
+    // The user is waiting on this result.
+    USER,
+    // Speculative work (look-ahead paging); yields to USER and never spends the last tokens.
+    PREFETCH
+}
+
+/** Thrown instead of making the caller wait out a long Reddit throttling window. */
+class RateLimitedException(val retryAfterMillis: Long) :
+    IOException("Reddit is rate limiting requests, try again in ${(retryAfterMillis + 999) / 1000}s")
+
+/**
+ * Token bucket pacing calls to the Reddit API.
+ *
+ * The refill rate follows the quota Reddit reports on every response: the remaining
+ * requests (`X-Ratelimit-Remaining`) spread over the seconds left in the window
+ * (`X-Ratelimit-Reset`), so throughput stays as high as the quota allows without
+ * running it dry. A 429 blocks the bucket until the window resets.
+ */
+@Singleton
+class RedditRateLimiter @Inject constructor() {
+
+    private val lock = ReentrantLock()
+    private val changed = lock.newCondition()
+
+    private var tokens = BURST_CAPACITY
+    private var capacity = BURST_CAPACITY
+    private var refillPerSecond = DEFAULT_REFILL_PER_SECOND
+    private var lastRefillNanos = System.nanoTime()
+    private var blockedUntilMillis = 0L
+    private var waitingUserCalls = 0
+
+    /**
+     * Blocks until [priority] may send a request. Fails fast with [RateLimitedException]
+     * when that would take longer than the priority's wait budget, and with an
+     * [IOException] once [isCanceled] reports the call was cancelled.
+     */
+    fun acquire(priority: RequestPriority, isCanceled: () -> Boolean) {
+        val maxWaitMillis = if (priority == RequestPriority.USER) MAX_USER_WAIT_MILLIS else MAX_PREFETCH_WAIT_MILLIS
+        val deadline = System.currentTimeMillis() + maxWaitMillis
+        lock.withLock {
+            if (priority == RequestPriority.USER) waitingUserCalls++
+            try {
+                while (true) {
+                    if (isCanceled()) throw IOException("Canceled")
+                    refill()
+
+                    val now = System.currentTimeMillis()
+                    val reserve = if (priority == RequestPriority.PREFETCH) PREFETCH_RESERVE else 0.0
+                    val yieldToUser = priority == RequestPriority.PREFETCH && waitingUserCalls > 0
+                    if (now >= blockedUntilMillis && !yieldToUser && tokens >= 1.0 + reserve) {
+                        tokens -= 1.0
+                        return
+                    }
+
+                    val readyAtMillis = maxOf(
+                        blockedUntilMillis,
+                        now + ((1.0 + reserve - tokens).coerceAtLeast(0.0) / refillPerSecond * 1000).toLong()
+                    )
+                    if (readyAtMillis > deadline) throw RateLimitedException(readyAtMillis - now)
+                    // Wake in slices so cancellation is noticed promptly.
+                    changed.await((readyAtMillis - now).coerceIn(MIN_WAIT_MILLIS, MAX_WAIT_SLICE_MILLIS), TimeUnit.MILLISECONDS)
+                }
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                throw IOException("Interrupted while waiting for rate limit", e)
+            } finally {
+                if (priority == RequestPriority.USER) waitingUserCalls--
+                changed.signalAll()
+            }
+        }
+    }
+
+    /**
+     * How long a [RequestPriority.PREFETCH] call would have to wait for a token right now,
+     * without taking one. Prefetches wait this out in the coroutine layer before they are
+     * enqueued, so they don't sit in [acquire] holding an OkHttp dispatcher slot.
+     */
+    fun prefetchWaitMillis(): Long = lock.withLock {
+        refill()
+        val now = System.currentTimeMillis()
+        when {
+            now < blockedUntilMillis -> blockedUntilMillis - now
+            waitingUserCalls > 0 -> MAX_WAIT_SLICE_MILLIS
+            else -> ((1.0 + PREFETCH_RESERVE - tokens).coerceAtLeast(0.0) / refillPerSecond * 1000).toLong()
+        }
+    }
+
+    /** Updates the pacing from Reddit's quota headers, and blocks the bucket on a 429. */
+    fun onResponse(response: Response) {
+        val remaining = response.header("X-Ratelimit-Remaining")?.toDoubleOrNull()
+        val resetSeconds = response.header("X-Ratelimit-Reset")?.toDoubleOrNull()
+        lock.withLock {
+            refill()
+            val now = System.currentTimeMillis()
+            if (remaining != null && resetSeconds != null) {
+                val windowSeconds = resetSeconds.coerceAtLeast(1.0)
+                refillPerSecond = (remaining / windowSeconds).coerceIn(MIN_REFILL_PER_SECOND, MAX_REFILL_PER_SECOND)
+                capacity = remaining.coerceIn(1.0, BURST_CAPACITY)
+                tokens = tokens.coerceAtMost(remaining)
+                if (remaining < 1.0) {
+                    blockedUntilMillis = maxOf(blockedUntilMillis, now + (windowSeconds * 1000).toLong())
+                }
+            }
+            if (response.code == 429) {
+                val retryAfterSeconds = response.header("Retry-After")?.toDoubleOrNull()
+                    ?: resetSeconds
+                    ?: DEFAULT_429_BACKOFF_SECONDS
+                blockedUntilMillis = maxOf(blockedUntilMillis, now + (retryAfterSeconds * 1000).toLong())
+                tokens = 0.0
+            }
+            changed.signalAll()
+        }
+    }
+
+    private fun refill() {
+        val now = System.nanoTime()
+        val elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0
+        lastRefillNanos = now
+        tokens = (tokens + elapsedSeconds * refillPerSecond).coerceAtMost(capacity)
+    }
+
+    companion object {
+        private const val BURST_CAPACITY = 5.0
+        private const val DEFAULT_REFILL_PER_SECOND = 1.0
+        private const val MIN_REFILL_PER_SECOND = 0.05
+        private const val MAX_REFILL_PER_SECOND = 10.0
+        private const val PREFETCH_RESERVE = 2.0
+        private const val DEFAULT_429_BACKOFF_SECONDS = 10.0
+        private const val MAX_USER_WAIT_MILLIS = 10_000L
+        private const val MAX_PREFETCH_WAIT_MILLIS = 30_000L
+        private const val MIN_WAIT_MILLIS = 5L
+        private const val MAX_WAIT_SLICE_MILLIS = 250L
+    }
+}
+
+/**
+ * Network interceptor that spends a [RedditRateLimiter] token on each Reddit API request
+ * that actually goes out, and feeds the quota headers of the live response back to it.
+ * Being below the HTTP cache, it never sees requests the cache answers, nor the hours-old
+ * quota headers stored with them.
+ */
+class RedditQuotaInterceptor(
+    private val rateLimiter: RedditRateLimiter
+) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        if (!isRedditApi(request)) return chain.proceed(request)
+
+        val priority = request.tag(RequestPriority::class.java) ?: RequestPriority.USER
+        rateLimiter.acquire(priority) { chain.call().isCanceled() }
+        val response = chain.proceed(request)
+        rateLimiter.onResponse(response)
+        return response
+    }
+}
+
+/**
+ * Application interceptor that retries throttled (429) and server-error (5xx) GETs to the
+ * Reddit API with jittered exponential backoff, honouring `Retry-After`. Only responses that
+ * came from the network are retried; each retry goes back through [RedditQuotaInterceptor],
+ * which also holds it while a 429 window is open. Cache-only lookups, non-API paths (such as
+ * connection warm-ups) and other hosts pass straight through.
+ */
+class RedditRateLimitInterceptor : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        if (!isRedditApi(request) || request.cacheControl.onlyIfCached) {
+            return chain.proceed(request)
+        }
+
+        val isCanceled = { chain.call().isCanceled() }
+        var attempt = 0
+        while (true) {
+            val response = chain.proceed(request)
+
+            val retryable = response.code == 429 || response.code in 500..599
+            if (!retryable || response.networkResponse == null || request.method != "GET" || attempt >= MAX_RETRIES) {
+                return response
+            }
+
+            // For a 429 the limiter itself now holds the next acquire until the window reopens.
+            val delayMillis = if (response.code == 429) 0L else backoffMillis(response, attempt)
+            response.close()
+            sleepUnlessCanceled(delayMillis, isCanceled)
+            attempt++
+        }
+    }
+
+    private fun backoffMillis(response: Response, attempt: Int): Long {
+        val retryAfterMillis = response.header("Retry-After")?.toLongOrNull()?.times(1000)
+        if (retryAfterMillis != null) return retryAfterMillis + Random.nextLong(JITTER_MILLIS)
+        val ceiling = (BASE_BACKOFF_MILLIS shl attempt).coerceAtMost(MAX_BACKOFF_MILLIS)
+        return Random.nextLong(ceiling / 2, ceiling + 1)
+    }
+
+    private fun sleepUnlessCanceled(delayMillis: Long, isCanceled: () -> Boolean) {
+        var remaining = delayMillis
+        try {
+            while (remaining > 0) {
+                if (isCanceled()) throw IOException("Canceled")
+                val slice = remaining.coerceAtMost(SLEEP_SLICE_MILLIS)
+                Thread.sleep(slice)
+                remaining -= slice
+            }
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IOException("Interrupted during retry backoff", e)
+        }
+    }
+
+    companion object {
+        private const val MAX_RETRIES = 3
+        private const val BASE_BACKOFF_MILLIS = 500L
+        private const val MAX_BACKOFF_MILLIS = 8_000L
+        private const val JITTER_MILLIS = 250L
+        private const val SLEEP_SLICE_MILLIS = 100L
+    }
+}
+
+private fun isRedditApi(request: Request): Boolean {
+    val host = request.url.host
+    val isRedditHost = host == "www.reddit.com" || host == "oauth.reddit.com" || host == "reddit.com"
+    return isRedditHost && request.url.encodedPath.endsWith(".json")
+}
@@ -0,0 +1,93 @@
+package com.skipfeed.android.data.api
+
+import javax.inject.Inject
+import javax.inject.Singleton
+
+data class LatencyStats(
+    val samples: Int,
+    val p50Millis: Long,
+    val p95Millis: Long,
+    val p99Millis: Long,
+    val requests: Long,
+    val hedged: Long,
+    val hedgeWins: Long,
+    val timeouts: Long
+) {
+    val hedgeRate: Float
+        get() = if (requests == 0L) 0f else hedged.toFloat() / requests
+}
+
+/**
+ * Rolling latency distribution of Reddit search requests, used to decide when a slow
+ * request is worth hedging and to report tail latency in the debug view.
+ */
+@Singleton
+class SearchLatencyTracker @Inject constructor() {
+
+    private val window = LongArray(WINDOW_SIZE)
+    private var next = 0
+    private var count = 0
+    private var requests = 0L
+    private var hedged = 0L
+    private var hedgeWins = 0L
+    private var timeouts = 0L
+
+    @Synchronized
+    fun record(latencyMillis: Long, wasHedged: Boolean, hedgeWon: Boolean) {
+        window[next] = latencyMillis
+        next = (next + 1) % WINDOW_SIZE
+        if (count < WINDOW_SIZE) count++
+        requests++
+        if (wasHedged) hedged++
+        if (hedgeWon) hedgeWins++
+    }
+
+    @Synchronized
+    fun recordTimeout(wasHedged: Boolean) {
+        requests++
+        timeouts++
+        if (wasHedged) hedged++
+    }
+
+    /**
+     * How long to wait for the first attempt before sending a hedge: the observed p95,
+     * so only about one request in twenty is duplicated, clamped to a sane range and
+     * defaulted until enough samples exist.
+     */
+    @Synchronized
+    fun hedgeDelayMillis(): Long {
+        if (count < MIN_SAMPLES) return DEFAULT_HEDGE_DELAY_MILLIS
+        return percentile(sortedWindow(), 0.95).coerceIn(MIN_HEDGE_DELAY_MILLIS, MAX_HEDGE_DELAY_MILLIS)
+    }
+
+    @Synchronized
+    fun stats(): LatencyStats {
+        val sorted = sortedWindow()
+        return LatencyStats(
+            samples = count,
+            p50Millis = percentile(sorted, 0.50),
+            p95Millis = percentile(sorted, 0.95),
+            p99Millis = percentile(sorted, 0.99),
+            requests = requests,
+            hedged = hedged,
+            hedgeWins = hedgeWins,
+            timeouts = timeouts
+        )
+    }
+
+    private fun sortedWindow(): LongArray = window.copyOf(count).also { it.sort() }
+
+    private fun percentile(sorted: LongArray, fraction: Double): Long {
+        if (sorted.isEmpty()) return 0L
+        val index = (fraction * (sorted.size - 1)).toInt()
+        return sorted[index]
+    }
+
+    companion object {
+        private const val WINDOW_SIZE = 200
+        private const val MIN_SAMPLES = 20
+        private const val DEFAULT_HEDGE_DELAY_MILLIS = 1_500L
+        private const val MIN_HEDGE_DELAY_MILLIS = 400L
+        private const val MAX_HEDGE_DELAY_MILLIS = 4_000L
+    }
+}
@@ -0,0 +1,69 @@
+package com.skipfeed.android.data.cache
+
+import coil.EventListener
+import coil.decode.DataSource
+import coil.request.ErrorResult
+import coil.request.ImageRequest
+import coil.request.SuccessResult
+import okhttp3.Call
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+data class ImageStats(
+    val memoryHits: Long,
+    val diskHits: Long,
+    val networkLoads: Long,
+    val failures: Long,
+    val bytesFetched: Long
+) {
+    val memoryHitRate: Float
+        get() {
+            val total = memoryHits + diskHits + networkLoads
+            return if (total == 0L) 0f else memoryHits.toFloat() / total
+        }
+}
+
+/**
+ * Counters for the app image loader: where each successful request was served from,
+ * and how many image bytes came over the network.
+ */
+@Singleton
+class ImageLoadStats @Inject constructor() {
+
+    private val memoryHits = AtomicLong()
+    private val diskHits = AtomicLong()
+    private val networkLoads = AtomicLong()
+    private val failures = AtomicLong()
+    private val bytesFetched = AtomicLong()
+
+    /** Coil listener that classifies each finished request by its [DataSource]. */
+    val eventListener: EventListener = object : EventListener {
+        override fun onSuccess(request: ImageRequest, result: SuccessResult) {
+            when (result.dataSource) {
+                DataSource.MEMORY_CACHE, DataSource.MEMORY -> memoryHits.incrementAndGet()
+                DataSource.DISK -> diskHits.incrementAndGet()
+                DataSource.NETWORK -> networkLoads.incrementAndGet()
+            }
+        }
+
+        override fun onError(request: ImageRequest, result: ErrorResult) {
+            failures.incrementAndGet()
+        }
+    }
+
+    /** OkHttp listener on the image client that adds up downloaded body bytes. */
+    val networkListener: okhttp3.EventListener = object : okhttp3.EventListener() {
+        override fun responseBodyEnd(call: Call, byteCount: Long) {
+            bytesFetched.addAndGet(byteCount)
+        }
+    }
+
+    fun snapshot(): ImageStats = ImageStats(
+        memoryHits = memoryHits.get(),
+        diskHits = diskHits.get(),
+        networkLoads = networkLoads.get(),
+        failures = failures.get(),
+        bytesFetched = bytesFetched.get()
+    )
+}
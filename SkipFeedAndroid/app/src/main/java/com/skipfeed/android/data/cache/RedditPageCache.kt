@@ -0,0 +1,119 @@
+package com.skipfeed.android.data.cache
+
+import android.util.LruCache
+import com.skipfeed.android.data.api.RedditCachePolicy
+import com.skipfeed.android.data.model.RedditPage
+import com.skipfeed.android.data.model.RedditSort
+import com.skipfeed.android.data.model.RedditTimeFilter
+import com.skipfeed.android.data.model.ResultSource
+import java.text.Normalizer
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicLong
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Identity of one page of Reddit search results. The query is NFKC-normalised,
+ * case-folded and whitespace-collapsed so "Android  Tips" and "android tips" share an entry.
+ */
+data class RedditPageKey(
+    val query: String,
+    val sort: RedditSort,
+    val timeFilter: RedditTimeFilter,
+    val after: String?
+) {
+    /** Identity of the whole result list this page belongs to, independent of [after]. */
+    val storeKey: String
+        get() = "$query|${sort.value}|${timeFilter.value}"
+
+    companion object {
+        private val WHITESPACE = Regex("\\s+")
+
+        fun of(
+            query: String,
+            sort: RedditSort,
+            timeFilter: RedditTimeFilter,
+            after: String?
+        ): RedditPageKey = RedditPageKey(normalizeQuery(query), sort, timeFilter, after)
+
+        fun normalizeQuery(query: String): String {
+            return Normalizer.normalize(query.trim(), Normalizer.Form.NFKC)
+                .lowercase(Locale.ROOT)
+                .replace(WHITESPACE, " ")
+        }
+    }
+}
+
+data class CacheStats(
+    val hits: Long,
+    val misses: Long,
+    val evictions: Long,
+    val size: Int
+) {
+    val hitRate: Float
+        get() = if (hits + misses == 0L) 0f else hits.toFloat() / (hits + misses)
+}
+
+/**
+ * In-memory LRU of already-decoded result pages, so returning to a query or sort
+ * within a session is a map lookup with no network and no parsing.
+ *
+ * Bounded by total post count (not entry count, since pages vary in size), and each
+ * entry expires after the same per-sort freshness window the HTTP cache uses.
+ */
+@Singleton
+class RedditPageCache @Inject constructor() {
+
+    private class Entry(val page: RedditPage, val fetchedAtMillis: Long)
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val evictions = AtomicLong()
+
+    private val entries = object : LruCache<RedditPageKey, Entry>(MAX_CACHED_POSTS) {
+        override fun sizeOf(key: RedditPageKey, value: Entry): Int = value.page.posts.size + 1
+
+        override fun entryRemoved(evicted: Boolean, key: RedditPageKey, oldValue: Entry, newValue: Entry?) {
+            if (evicted) evictions.incrementAndGet()
+        }
+    }
+
+    fun get(key: RedditPageKey, nowMillis: Long = System.currentTimeMillis()): RedditPage? {
+        val entry = entries.get(key)
+        if (entry == null) {
+            misses.incrementAndGet()
+            return null
+        }
+
+        val ageMillis = nowMillis - entry.fetchedAtMillis
+        val ttlMillis = RedditCachePolicy.freshnessSeconds(key.sort, key.timeFilter) * 1000L
+        if (ageMillis > ttlMillis) {
+            entries.remove(key)
+            misses.incrementAndGet()
+            return null
+        }
+
+        hits.incrementAndGet()
+        return entry.page.copy(source = ResultSource.MEMORY, ageMillis = ageMillis, isStale = false)
+    }
+
+    fun put(key: RedditPageKey, page: RedditPage, nowMillis: Long = System.currentTimeMillis()) {
+        // A page that came from disk is only as fresh as its original fetch.
+        entries.put(key, Entry(page, nowMillis - page.ageMillis))
+    }
+
+    fun clear() {
+        entries.evictAll()
+    }
+
+    fun stats(): CacheStats = CacheStats(
+        hits = hits.get(),
+        misses = misses.get(),
+        evictions = evictions.get(),
+        size = entries.size()
+    )
+
+    companion object {
+        const val MAX_CACHED_POSTS = 1_000
+    }
+}
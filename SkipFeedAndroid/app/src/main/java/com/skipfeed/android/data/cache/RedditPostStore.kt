@@ -0,0 +1,86 @@
+package com.skipfeed.android.data.cache
+
+import com.skipfeed.android.data.api.RedditCachePolicy
+import com.skipfeed.android.data.database.RedditPostDao
+import com.skipfeed.android.data.model.RedditPage
+import com.skipfeed.android.data.model.RedditPost
+import com.skipfeed.android.data.model.RedditRemoteKey
+import com.skipfeed.android.data.model.ResultSource
+import com.skipfeed.android.data.model.StoredRedditPost
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Room-backed store of fetched result pages, playing the role a RemoteMediator plays for
+ * a Paging source: pages are read from the database first and every network page is
+ * written through, so a recent query renders from disk and stays browsable offline.
+ *
+ * Pages are chained by their `after` tokens in `reddit_remote_keys`. Only the most
+ * recently refreshed [MAX_STORED_QUERIES] result lists are kept.
+ *
+ * This is not a `PagingSource`/`RemoteMediator` pair because the results screen re-sorts,
+ * facets and compacts every loaded post at once, which a windowed `LazyPagingItems` cannot
+ * expose; the view model keeps its own page list and reads and writes pages here by token.
+ */
+@Singleton
+class RedditPostStore @Inject constructor(
+    private val redditPostDao: RedditPostDao
+) {
+
+    suspend fun readPage(key: RedditPageKey, nowMillis: Long = System.currentTimeMillis()): RedditPage? {
+        val remoteKey = redditPostDao.getRemoteKeyForRequest(key.storeKey, key.after) ?: return null
+        val posts = redditPostDao.getPage(key.storeKey, remoteKey.pageIndex)
+        // An empty non-final page means the rows were pruned underneath the key.
+        if (posts.isEmpty() && remoteKey.nextAfter != null) return null
+
+        val ageMillis = (nowMillis - remoteKey.fetchedAt).coerceAtLeast(0L)
+        return RedditPage(
+            posts = posts.map { it.toRedditPost() },
+            after = remoteKey.nextAfter,
+            source = ResultSource.STORE,
+            ageMillis = ageMillis,
+            isStale = ageMillis > RedditCachePolicy.freshnessSeconds(key.sort, key.timeFilter) * 1000L
+        )
+    }
+
+    /**
+     * Writes [page] through to the database. A first page replaces the whole stored list;
+     * a continuation page is placed after the page whose `after` token requested it, and is
+     * dropped if that page is no longer stored.
+     */
+    suspend fun writePage(key: RedditPageKey, page: RedditPage, nowMillis: Long = System.currentTimeMillis()) {
+        val pageIndex = if (key.after == null) {
+            0
+        } else {
+            val previous = redditPostDao.getRemoteKeyBefore(key.storeKey, key.after) ?: return
+            previous.pageIndex + 1
+        }
+
+        redditPostDao.replacePage(
+            queryKey = key.storeKey,
+            pageIndex = pageIndex,
+            posts = page.posts.mapIndexed { position, post ->
+                StoredRedditPost.from(key.storeKey, pageIndex, position, post)
+            },
+            remoteKey = RedditRemoteKey(
+                queryKey = key.storeKey,
+                pageIndex = pageIndex,
+                requestAfter = key.after,
+                nextAfter = page.after,
+                fetchedAt = nowMillis - page.ageMillis
+            ),
+            keepQueries = MAX_STORED_QUERIES
+        )
+    }
+
+    suspend fun getPost(postId: String): RedditPost? = redditPostDao.getPost(postId)?.toRedditPost()
+
+    suspend fun clear() {
+        redditPostDao.clearPosts()
+        redditPostDao.clearRemoteKeys()
+    }
+
+    companion object {
+        const val MAX_STORED_QUERIES = 20
+    }
+}
@@ -0,0 +1,63 @@
+package com.skipfeed.android.data.cache
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Coalesces concurrent calls for the same key into one execution of the block.
+ *
+ * The shared call runs in [scope] so one caller going away does not fail the others,
+ * but it is reference-counted: once every waiter has been cancelled the call itself is
+ * cancelled, so superseded work is still aborted.
+ */
+class SingleFlight<K : Any, V>(private val scope: CoroutineScope) {
+
+    private class Call<V>(val deferred: Deferred<V>) {
+        var waiters = 0
+    }
+
+    private val lock = Any()
+    private val calls = HashMap<K, Call<V>>()
+    private val coalesced = AtomicLong()
+
+    /** Number of callers that joined an already in-flight call instead of starting one. */
+    val coalescedCount: Long
+        get() = coalesced.get()
+
+    suspend fun run(key: K, block: suspend () -> V): V {
+        val call = synchronized(lock) {
+            val existing = calls[key]
+            if (existing != null) {
+                coalesced.incrementAndGet()
+                existing
+            } else {
+                val deferred = scope.async(start = CoroutineStart.LAZY) { block() }
+                val created = Call(deferred)
+                calls[key] = created
+                deferred.invokeOnCompletion {
+                    synchronized(lock) {
+                        if (calls[key] === created) calls.remove(key)
+                    }
+                }
+                created
+            }.also { it.waiters++ }
+        }
+
+        call.deferred.start()
+        try {
+            return call.deferred.await()
+        } finally {
+            val abandoned = synchronized(lock) {
+                call.waiters--
+                val abandoned = call.waiters == 0 && !call.deferred.isCompleted
+                // Unpublish before cancelling so a new caller never joins a dying call.
+                if (abandoned && calls[key] === call) calls.remove(key)
+                abandoned
+            }
+            if (abandoned) call.deferred.cancel()
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.skipfeed.android.data.database
+
+import android.content.Context
+import android.util.Log
+import android.util.Xml
+import com.skipfeed.android.data.cache.RedditPageKey
+import com.skipfeed.android.data.model.Platform
+import com.skipfeed.android.data.model.SearchHistoryItem
+import com.skipfeed.android.di.ApplicationScope
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.async
+import org.xmlpull.v1.XmlPullParser
+import java.io.File
+import java.io.InputStream
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * One-time move of the search history that older versions kept in the `search_history`
+ * SharedPreferences file into the `search_history` table.
+ *
+ * The file is read with an [XmlPullParser] straight from disk rather than through
+ * [Context.getSharedPreferences], which would parse the whole map and keep it in memory
+ * for the life of the process. Repeats of a query are folded into one row, and everything
+ * is merged in a single transaction before the file is deleted, so a failed import leaves
+ * nothing half-applied and is simply retried on the next launch.
+ */
+@Singleton
+class LegacySearchHistoryImporter @Inject constructor(
+    private val context: Context,
+    private val searchHistoryDao: SearchHistoryDao,
+    @ApplicationScope applicationScope: CoroutineScope
+) {
+
+    // Started eagerly; history reads wait on it so legacy rows never pop in late.
+    private val import: Deferred<Unit> = applicationScope.async { importIfPresent() }
+
+    suspend fun awaitImport() {
+        import.await()
+    }
+
+    private class LegacyEntry {
+        var query: String? = null
+        var platform: String? = null
+        var mode: String? = null
+        var timestampMillis = 0L
+    }
+
+    private suspend fun importIfPresent() {
+        val file = File(context.applicationInfo.dataDir, "shared_prefs/$PREFS_NAME.xml")
+        if (!file.exists()) return
+        try {
+            val entries = file.inputStream().buffered().use { parse(it) }
+            val nowMillis = System.currentTimeMillis()
+            val items = entries.values
+                .mapNotNull { toHistoryItem(it, nowMillis) }
+                .groupBy { it.normalizedQuery to it.platform }
+                .values
+                .map { fold(it) }
+            searchHistoryDao.mergeSearches(items)
+            context.deleteSharedPreferences(PREFS_NAME)
+            Log.d(TAG, "Imported ${entries.size} legacy history entries as ${items.size} rows")
+        } catch (e: Exception) {
+            // Leave the file in place and try again next launch.
+            Log.e(TAG, "Legacy search history import failed", e)
+        }
+    }
+
+    private fun parse(input: InputStream): Map<String, LegacyEntry> {
+        val entries = HashMap<String, LegacyEntry>()
+        val parser = Xml.newPullParser()
+        parser.setInput(input, "UTF-8")
+
+        var event = parser.eventType
+        while (event != XmlPullParser.END_DOCUMENT) {
+            if (event == XmlPullParser.START_TAG) {
+                val key = parser.getAttributeValue(null, "name")
+                when (parser.name) {
+                    "string" -> if (key != null) assign(entries, key, parser.nextText(), null)
+                    "long" -> if (key != null) assign(entries, key, null, parser.getAttributeValue(null, "value")?.toLongOrNull())
+                }
+            }
+            event = parser.next()
+        }
+        return entries
+    }
+
+    /**
+     * Two layouts were written: `<epoch millis>_<field>` by each search, and
+     * `<field>_<index>` when the retention policy rewrote the whole file.
+     */
+    private fun assign(entries: MutableMap<String, LegacyEntry>, key: String, text: String?, longValue: Long?) {
+        val split = key.indexOf('_')
+        if (split <= 0) return
+        val head = key.substring(0, split)
+
+        if (head.all { it.isDigit() }) {
+            val entry = entries.getOrPut(head) { LegacyEntry().apply { timestampMillis = head.toLongOrNull() ?: 0L } }
+            when (key.substring(split + 1)) {
+                "query" -> entry.query = text
+                "platform" -> entry.platform = text
+                "mode" -> entry.mode = text
+            }
+        } else {
+            val index = key.substringAfterLast('_')
+            if (index.isEmpty() || !index.all { it.isDigit() }) return
+            val entry = entries.getOrPut("index-$index") { LegacyEntry() }
+            when (key.substringBeforeLast('_')) {
+                "query" -> entry.query = text
+                "platform" -> entry.platform = text
+                "timestamp_millis" -> entry.timestampMillis = longValue ?: 0L
+            }
+        }
+    }
+
+    // Drops the same entries the old history screen hid: no query, unknown platform,
+    // or a timestamp before 2020 or in the future.
+    private fun toHistoryItem(entry: LegacyEntry, nowMillis: Long): SearchHistoryItem? {
+        val query = entry.query?.trim().orEmpty()
+        if (query.isEmpty()) return null
+        val platform = Platform.values().firstOrNull {
+            it.displayName == entry.platform || it.name == entry.platform
+        } ?: return null
+        if (entry.timestampMillis < EARLIEST_VALID_MILLIS || entry.timestampMillis > nowMillis) return null
+
+        return SearchHistoryItem(
+            query = query,
+            normalizedQuery = RedditPageKey.normalizeQuery(query),
+            platform = platform.name,
+            timestamp = entry.timestampMillis,
+            mode = entry.mode ?: SearchHistoryItem.DEFAULT_MODE
+        )
+    }
+
+    // One row per query and platform: the latest spelling and mode, and the full count and span.
+    private fun fold(runs: List<SearchHistoryItem>): SearchHistoryItem {
+        val latest = runs.maxBy { it.timestamp }
+        return latest.copy(firstUsed = runs.minOf { it.timestamp }, useCount = runs.size)
+    }
+
+    companion object {
+        private const val TAG = "LegacyHistoryImport"
+        private const val PREFS_NAME = "search_history"
+        // Jan 1, 2020
+        private const val EARLIEST_VALID_MILLIS = 1577836800000L
+    }
+}
@@ -0,0 +1,169 @@
+package com.skipfeed.android.data.database
+
+import android.content.ContentValues
+import android.database.sqlite.SQLiteDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import com.skipfeed.android.data.cache.RedditPageKey
+
+/**
+ * Schema migrations for [SkipFeedDatabase]. The DDL mirrors what Room generates for the
+ * entities so the post-migration schema validates.
+ */
+object Migrations {
+
+    /** Adds the offline store of fetched Reddit pages. */
+    val MIGRATION_1_2 = object : Migration(1, 2) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `reddit_posts` (" +
+                    "`queryKey` TEXT NOT NULL, `pageIndex` INTEGER NOT NULL, `position` INTEGER NOT NULL, " +
+                    "`postId` TEXT NOT NULL, `title` TEXT NOT NULL, `author` TEXT NOT NULL, " +
+                    "`subreddit` TEXT NOT NULL, `score` INTEGER NOT NULL, `numComments` INTEGER NOT NULL, " +
+                    "`created` REAL NOT NULL, `url` TEXT NOT NULL, `permalink` TEXT NOT NULL, " +
+                    "`selftext` TEXT, `thumbnail` TEXT, `previewUrl` TEXT, " +
+                    "`previewWidth` INTEGER NOT NULL, `previewHeight` INTEGER NOT NULL, " +
+                    "`isVideo` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`queryKey`, `pageIndex`, `position`))"
+            )
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_reddit_posts_postId` ON `reddit_posts` (`postId`)")
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `reddit_remote_keys` (" +
+                    "`queryKey` TEXT NOT NULL, `pageIndex` INTEGER NOT NULL, " +
+                    "`requestAfter` TEXT, `nextAfter` TEXT, `fetchedAt` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`queryKey`, `pageIndex`))"
+            )
+        }
+    }
+
+    /** Keeps Reddit's downscaled preview renditions alongside each stored post. */
+    val MIGRATION_2_3 = object : Migration(2, 3) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL("ALTER TABLE `reddit_posts` ADD COLUMN `previewResolutions` TEXT")
+        }
+    }
+
+    /**
+     * Records how each search was opened, and indexes history by time so the newest-first
+     * and retention queries stop scanning the table.
+     */
+    val MIGRATION_3_4 = object : Migration(3, 4) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL("ALTER TABLE `search_history` ADD COLUMN `mode` TEXT NOT NULL DEFAULT 'Direct'")
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_search_history_timestamp` ON `search_history` (`timestamp`)")
+        }
+    }
+
+    /**
+     * Makes history one row per (normalised query, platform) with use counts and first/last
+     * use times. Existing rows are folded together in Kotlin because the normalisation
+     * (NFKC, locale-free lowercasing, collapsed whitespace) has no SQL equivalent.
+     */
+    val MIGRATION_4_5 = object : Migration(4, 5) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE TABLE IF NOT EXISTS `search_history_new` (" +
+                    "`id` TEXT NOT NULL, `query` TEXT NOT NULL, `normalizedQuery` TEXT NOT NULL, " +
+                    "`platform` TEXT NOT NULL, `timestamp` INTEGER NOT NULL, `firstUsed` INTEGER NOT NULL, " +
+                    "`useCount` INTEGER NOT NULL, `resultCount` INTEGER, " +
+                    "`mode` TEXT NOT NULL DEFAULT 'Direct', PRIMARY KEY(`id`))"
+            )
+
+            // Oldest first, so the latest spelling, mode and result count of a query win.
+            val merged = HashMap<Pair<String, String>, ContentValues>()
+            db.query(
+                "SELECT `id`, `query`, `platform`, `timestamp`, `resultCount`, `mode` " +
+                    "FROM `search_history` ORDER BY `timestamp`"
+            ).use { cursor ->
+                while (cursor.moveToNext()) {
+                    val query = cursor.getString(1)
+                    val platform = cursor.getString(2)
+                    val timestamp = cursor.getLong(3)
+                    val normalizedQuery = RedditPageKey.normalizeQuery(query)
+                    if (normalizedQuery.isEmpty()) continue
+
+                    val row = merged.getOrPut(normalizedQuery to platform) {
+                        ContentValues().apply {
+                            put("id", cursor.getString(0))
+                            put("normalizedQuery", normalizedQuery)
+                            put("platform", platform)
+                            put("firstUsed", timestamp)
+                            put("useCount", 0)
+                        }
+                    }
+                    row.put("query", query.trim())
+                    row.put("timestamp", timestamp)
+                    row.put("useCount", row.getAsInteger("useCount") + 1)
+                    row.put("mode", cursor.getString(5))
+                    if (!cursor.isNull(4)) row.put("resultCount", cursor.getInt(4))
+                }
+            }
+            for (row in merged.values) {
+                db.insert("search_history_new", SQLiteDatabase.CONFLICT_ABORT, row)
+            }
+
+            db.execSQL("DROP TABLE `search_history`")
+            db.execSQL("ALTER TABLE `search_history_new` RENAME TO `search_history`")
+            db.execSQL(
+                "CREATE UNIQUE INDEX IF NOT EXISTS `index_search_history_normalizedQuery_platform` " +
+                    "ON `search_history` (`normalizedQuery`, `platform`)"
+            )
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_search_history_timestamp` ON `search_history` (`timestamp`)")
+            db.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_search_history_platform_timestamp` " +
+                    "ON `search_history` (`platform`, `timestamp`)"
+            )
+            db.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_search_history_useCount_timestamp` " +
+                    "ON `search_history` (`useCount`, `timestamp`)"
+            )
+        }
+    }
+
+    /**
+     * Adds the full-text index over normalised history queries, with the triggers Room uses
+     * to keep an external-content FTS table in step, and fills it from the existing rows.
+     */
+    val MIGRATION_5_6 = object : Migration(5, 6) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL(
+                "CREATE VIRTUAL TABLE IF NOT EXISTS `search_history_fts` USING FTS4(" +
+                    "`normalizedQuery` TEXT NOT NULL, tokenize=unicode61, content=`search_history`)"
+            )
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_search_history_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `search_history` BEGIN " +
+                    "DELETE FROM `search_history_fts` WHERE `docid`=OLD.`rowid`; END"
+            )
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_search_history_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `search_history` BEGIN " +
+                    "DELETE FROM `search_history_fts` WHERE `docid`=OLD.`rowid`; END"
+            )
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_search_history_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `search_history` BEGIN " +
+                    "INSERT INTO `search_history_fts`(`docid`, `normalizedQuery`) " +
+                    "VALUES (NEW.`rowid`, NEW.`normalizedQuery`); END"
+            )
+            db.execSQL(
+                "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_search_history_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `search_history` BEGIN " +
+                    "INSERT INTO `search_history_fts`(`docid`, `normalizedQuery`) " +
+                    "VALUES (NEW.`rowid`, NEW.`normalizedQuery`); END"
+            )
+            db.execSQL("INSERT INTO `search_history_fts`(`search_history_fts`) VALUES('rebuild')")
+        }
+    }
+
+    /** Drops the (useCount, timestamp) index, which no query reads any more. */
+    val MIGRATION_6_7 = object : Migration(6, 7) {
+        override fun migrate(db: SupportSQLiteDatabase) {
+            db.execSQL("DROP INDEX IF EXISTS `index_search_history_useCount_timestamp`")
+        }
+    }
+
+    val ALL: Array<Migration> = arrayOf(
+        MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7
+    )
+}
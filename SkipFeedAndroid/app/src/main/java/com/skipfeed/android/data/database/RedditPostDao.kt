@@ -0,0 +1,73 @@
+package com.skipfeed.android.data.database
+
+import androidx.room.*
+import com.skipfeed.android.data.model.RedditRemoteKey
+import com.skipfeed.android.data.model.StoredRedditPost
+
+@Dao
+abstract class RedditPostDao {
+
+    @Query("SELECT * FROM reddit_remote_keys WHERE queryKey = :queryKey AND requestAfter IS :after LIMIT 1")
+    abstract suspend fun getRemoteKeyForRequest(queryKey: String, after: String?): RedditRemoteKey?
+
+    @Query("SELECT * FROM reddit_remote_keys WHERE queryKey = :queryKey AND nextAfter = :after LIMIT 1")
+    abstract suspend fun getRemoteKeyBefore(queryKey: String, after: String): RedditRemoteKey?
+
+    @Query("SELECT * FROM reddit_posts WHERE queryKey = :queryKey AND pageIndex = :pageIndex ORDER BY position")
+    abstract suspend fun getPage(queryKey: String, pageIndex: Int): List<StoredRedditPost>
+
+    @Query("SELECT * FROM reddit_posts WHERE postId = :postId LIMIT 1")
+    abstract suspend fun getPost(postId: String): StoredRedditPost?
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract suspend fun insertPosts(posts: List<StoredRedditPost>)
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    abstract suspend fun insertRemoteKey(remoteKey: RedditRemoteKey)
+
+    @Query("DELETE FROM reddit_posts WHERE queryKey = :queryKey AND pageIndex >= :fromPageIndex")
+    abstract suspend fun deletePostsFrom(queryKey: String, fromPageIndex: Int)
+
+    @Query("DELETE FROM reddit_remote_keys WHERE queryKey = :queryKey AND pageIndex >= :fromPageIndex")
+    abstract suspend fun deleteRemoteKeysFrom(queryKey: String, fromPageIndex: Int)
+
+    @Query(
+        "DELETE FROM reddit_posts WHERE queryKey NOT IN " +
+            "(SELECT queryKey FROM reddit_remote_keys WHERE pageIndex = 0 ORDER BY fetchedAt DESC LIMIT :keep)"
+    )
+    abstract suspend fun pruneOldPosts(keep: Int)
+
+    @Query(
+        "DELETE FROM reddit_remote_keys WHERE queryKey NOT IN " +
+            "(SELECT queryKey FROM reddit_remote_keys WHERE pageIndex = 0 ORDER BY fetchedAt DESC LIMIT :keep)"
+    )
+    abstract suspend fun pruneOldRemoteKeys(keep: Int)
+
+    @Query("DELETE FROM reddit_posts")
+    abstract suspend fun clearPosts()
+
+    @Query("DELETE FROM reddit_remote_keys")
+    abstract suspend fun clearRemoteKeys()
+
+    /**
+     * Replaces page [pageIndex] of [queryKey] and drops every later page, which was
+     * fetched against a continuation token that no longer applies.
+     */
+    @Transaction
+    open suspend fun replacePage(
+        queryKey: String,
+        pageIndex: Int,
+        posts: List<StoredRedditPost>,
+        remoteKey: RedditRemoteKey,
+        keepQueries: Int
+    ) {
+        deletePostsFrom(queryKey, pageIndex)
+        deleteRemoteKeysFrom(queryKey, pageIndex)
+        insertPosts(posts)
+        insertRemoteKey(remoteKey)
+        if (pageIndex == 0) {
+            pruneOldPosts(keepQueries)
+            pruneOldRemoteKeys(keepQueries)
+        }
+    }
+}
@@ -1,36 +1,185 @@
 package com.skipfeed.android.data.database
 
+import androidx.paging.PagingSource
 import androidx.room.*
+import com.skipfeed.android.data.model.PlatformSearchCount
 import com.skipfeed.android.data.model.SearchHistoryItem
+import com.skipfeed.android.data.model.TimeOfDayCounts
 import kotlinx.coroutines.flow.Flow
 
 @Dao
-interface SearchHistoryDao {
-    
-    @Query("SELECT * FROM search_history ORDER BY timestamp DESC")
-    fun getAllSearchHistory(): Flow<List<SearchHistoryItem>>
-    
-    @Query("SELECT * FROM search_history WHERE platform = :platform ORDER BY timestamp DESC")
-    fun getSearchHistoryByPlatform(platform: String): Flow<List<SearchHistoryItem>>
-    
-    @Query("SELECT * FROM search_history ORDER BY timestamp DESC LIMIT :limit")
-    suspend fun getRecentSearches(limit: Int = 10): List<SearchHistoryItem>
-    
-    @Query("SELECT DISTINCT query FROM search_history ORDER BY timestamp DESC LIMIT :limit")
-    suspend fun getRecentQueries(limit: Int = 5): List<String>
-    
-    @Insert(onConflict = OnConflictStrategy.REPLACE)
-    suspend fun insertSearch(searchHistoryItem: SearchHistoryItem)
-    
+abstract class SearchHistoryDao {
+
+    // Room's PagingSource counts the matching rows for placeholders and then reads only
+    // the requested window; a write invalidates it and the visible window is reloaded.
+    @Query(
+        "SELECT * FROM search_history WHERE timestamp >= :fromTimestamp AND timestamp < :untilTimestamp " +
+            "ORDER BY timestamp DESC"
+    )
+    abstract fun pageSearches(fromTimestamp: Long, untilTimestamp: Long): PagingSource<Int, SearchHistoryItem>
+
+    @Query(
+        "SELECT * FROM search_history WHERE platform = :platform " +
+            "AND timestamp >= :fromTimestamp AND timestamp < :untilTimestamp ORDER BY timestamp DESC"
+    )
+    abstract fun pageSearchesByPlatform(
+        platform: String,
+        fromTimestamp: Long,
+        untilTimestamp: Long
+    ): PagingSource<Int, SearchHistoryItem>
+
+    // :match is an FTS4 expression such as `cat* vid*`. Matches come out of the index by
+    // rowid, and are ranked by frecency: uses divided by one plus days since the last use.
+    @Query(
+        "SELECT search_history.* FROM search_history " +
+            "JOIN search_history_fts ON search_history.rowid = search_history_fts.docid " +
+            "WHERE search_history_fts MATCH :match " +
+            "AND search_history.timestamp >= :fromTimestamp AND search_history.timestamp < :untilTimestamp " +
+            "ORDER BY search_history.useCount / (1.0 + MAX(0, :nowMillis - search_history.timestamp) / 86400000.0) DESC, " +
+            "search_history.timestamp DESC"
+    )
+    abstract fun matchSearches(
+        match: String,
+        fromTimestamp: Long,
+        untilTimestamp: Long,
+        nowMillis: Long
+    ): PagingSource<Int, SearchHistoryItem>
+
+    @Query(
+        "SELECT search_history.* FROM search_history " +
+            "JOIN search_history_fts ON search_history.rowid = search_history_fts.docid " +
+            "WHERE search_history_fts MATCH :match AND search_history.platform = :platform " +
+            "AND search_history.timestamp >= :fromTimestamp AND search_history.timestamp < :untilTimestamp " +
+            "ORDER BY search_history.useCount / (1.0 + MAX(0, :nowMillis - search_history.timestamp) / 86400000.0) DESC, " +
+            "search_history.timestamp DESC"
+    )
+    abstract fun matchSearchesByPlatform(
+        match: String,
+        platform: String,
+        fromTimestamp: Long,
+        untilTimestamp: Long,
+        nowMillis: Long
+    ): PagingSource<Int, SearchHistoryItem>
+
+    @Query("SELECT EXISTS(SELECT 1 FROM search_history)")
+    abstract fun hasHistory(): Flow<Boolean>
+
+    // Minutes past local midnight of each row's last use, bucketed the way the statistics
+    // screen splits the day: morning 3:00-11:30, afternoon 11:30-18:00, evening the rest.
+    // Rows are weighted by useCount; earlier runs of a query are not kept, so all of its
+    // uses land in the bucket of its most recent one.
+    @Query(
+        "SELECT " +
+            "COALESCE(SUM(CASE WHEN minute >= 180 AND minute < 690 THEN useCount ELSE 0 END), 0) AS morning, " +
+            "COALESCE(SUM(CASE WHEN minute >= 690 AND minute < 1080 THEN useCount ELSE 0 END), 0) AS afternoon, " +
+            "COALESCE(SUM(CASE WHEN minute < 180 OR minute >= 1080 THEN useCount ELSE 0 END), 0) AS evening " +
+            "FROM (SELECT CAST(strftime('%H', timestamp / 1000, 'unixepoch', 'localtime') AS INTEGER) * 60 + " +
+            "CAST(strftime('%M', timestamp / 1000, 'unixepoch', 'localtime') AS INTEGER) AS minute, useCount " +
+            "FROM search_history)"
+    )
+    abstract fun getTimeOfDayCounts(): Flow<TimeOfDayCounts>
+
+    @Query("SELECT * FROM search_history WHERE timestamp >= :sinceTimestamp ORDER BY timestamp DESC")
+    abstract suspend fun getSearchesSince(sinceTimestamp: Long): List<SearchHistoryItem>
+
+    // Walks the timestamp index newest first and keeps a row only if it is its query's most
+    // recent use on any platform, found through the (normalizedQuery, platform) index. The
+    // walk stops after :limit queries or at :afterTimestamp, so only recent rows are read.
+    @Query(
+        "SELECT query FROM search_history s WHERE timestamp > :afterTimestamp AND timestamp = " +
+            "(SELECT MAX(timestamp) FROM search_history WHERE normalizedQuery = s.normalizedQuery) " +
+            "ORDER BY timestamp DESC LIMIT :limit"
+    )
+    abstract fun getRecentQueries(limit: Int, afterTimestamp: Long): Flow<List<String>>
+
+    // Each row stands for useCount runs of one query, so searches are summed, not rows counted.
+    @Query("SELECT platform, SUM(useCount) AS count FROM search_history GROUP BY platform ORDER BY count DESC")
+    abstract suspend fun getPlatformCounts(): List<PlatformSearchCount>
+
+    @Insert(onConflict = OnConflictStrategy.ABORT)
+    abstract suspend fun insertSearch(searchHistoryItem: SearchHistoryItem)
+
+    @Query(
+        "UPDATE search_history SET query = :query, timestamp = :timestamp, mode = :mode, " +
+            "useCount = useCount + 1 WHERE normalizedQuery = :normalizedQuery AND platform = :platform"
+    )
+    abstract suspend fun touchSearch(
+        normalizedQuery: String,
+        platform: String,
+        query: String,
+        timestamp: Long,
+        mode: String
+    ): Int
+
+    // SQLite evaluates every SET expression against the row as it was before the update.
+    @Query(
+        "UPDATE search_history SET " +
+            "query = CASE WHEN :timestamp > timestamp THEN :query ELSE query END, " +
+            "mode = CASE WHEN :timestamp > timestamp THEN :mode ELSE mode END, " +
+            "timestamp = MAX(timestamp, :timestamp), firstUsed = MIN(firstUsed, :firstUsed), " +
+            "useCount = useCount + :useCount " +
+            "WHERE normalizedQuery = :normalizedQuery AND platform = :platform"
+    )
+    abstract suspend fun mergeInto(
+        normalizedQuery: String,
+        platform: String,
+        query: String,
+        timestamp: Long,
+        firstUsed: Long,
+        useCount: Int,
+        mode: String
+    ): Int
+
+    /** Records one more run of [item]'s query, or inserts it if it was never searched. */
+    @Transaction
+    open suspend fun upsertSearch(item: SearchHistoryItem) {
+        val updated = touchSearch(item.normalizedQuery, item.platform, item.query, item.timestamp, item.mode)
+        if (updated == 0) insertSearch(item)
+    }
+
+    /** Folds already-aggregated rows into the table, adding their counts to existing rows. */
+    @Transaction
+    open suspend fun mergeSearches(items: List<SearchHistoryItem>) {
+        for (item in items) {
+            val updated = mergeInto(
+                item.normalizedQuery,
+                item.platform,
+                item.query,
+                item.timestamp,
+                item.firstUsed,
+                item.useCount,
+                item.mode
+            )
+            if (updated == 0) insertSearch(item)
+        }
+    }
+
     @Delete
-    suspend fun deleteSearch(searchHistoryItem: SearchHistoryItem)
-    
+    abstract suspend fun deleteSearch(searchHistoryItem: SearchHistoryItem)
+
+    @Query("DELETE FROM search_history WHERE id IN (:ids)")
+    abstract suspend fun deleteByIds(ids: List<String>)
+
+    /**
+     * Deletes the rows with [ids] in one transaction, binding at most
+     * [MAX_BIND_ARGS] ids per statement.
+     */
+    @Transaction
+    open suspend fun deleteSearches(ids: List<String>) {
+        for (chunk in ids.chunked(MAX_BIND_ARGS)) deleteByIds(chunk)
+    }
+
     @Query("DELETE FROM search_history")
-    suspend fun clearAllHistory()
-    
+    abstract suspend fun clearAllHistory()
+
     @Query("DELETE FROM search_history WHERE platform = :platform")
-    suspend fun clearHistoryByPlatform(platform: String)
-    
+    abstract suspend fun clearHistoryByPlatform(platform: String)
+
     @Query("DELETE FROM search_history WHERE timestamp < :beforeTimestamp")
-    suspend fun deleteOldEntries(beforeTimestamp: Long)
+    abstract suspend fun deleteOldEntries(beforeTimestamp: Long)
+
+    private companion object {
+        // SQLite before 3.32 (Android 10 and lower) rejects statements with more bound variables.
+        const val MAX_BIND_ARGS = 999
+    }
 }
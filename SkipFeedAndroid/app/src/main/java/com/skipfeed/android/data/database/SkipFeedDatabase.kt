@@ -8,12 +8,21 @@ import androidx.room.TypeConverters
 import android.content.Context
 import com.google.gson.Gson
 import com.google.gson.reflect.TypeToken
+import com.skipfeed.android.data.model.RedditRemoteKey
+import com.skipfeed.android.data.model.SearchHistoryFts
 import com.skipfeed.android.data.model.SearchHistoryItem
+import com.skipfeed.android.data.model.StoredRedditPost
 import com.skipfeed.android.data.model.UsageAnalytics
 
 @Database(
-    entities = [SearchHistoryItem::class, UsageAnalytics::class],
-    version = 1,
+    entities = [
+        SearchHistoryItem::class,
+        SearchHistoryFts::class,
+        UsageAnalytics::class,
+        StoredRedditPost::class,
+        RedditRemoteKey::class
+    ],
+    version = 7,
     exportSchema = false
 )
 @TypeConverters(Converters::class)
@@ -21,6 +30,7 @@ abstract class SkipFeedDatabase : RoomDatabase() {
     
     abstract fun searchHistoryDao(): SearchHistoryDao
     abstract fun usageAnalyticsDao(): UsageAnalyticsDao
+    abstract fun redditPostDao(): RedditPostDao
 
     companion object {
         @Volatile
@@ -32,7 +42,9 @@ abstract class SkipFeedDatabase : RoomDatabase() {
                     context.applicationContext,
                     SkipFeedDatabase::class.java,
                     "skipfeed_database"
-                ).build()
+                )
+                .addMigrations(*Migrations.ALL)
+                .build()
                 INSTANCE = instance
                 instance
             }
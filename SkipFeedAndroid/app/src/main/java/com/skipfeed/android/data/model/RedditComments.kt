@@ -0,0 +1,46 @@
+package com.skipfeed.android.data.model
+
+/**
+ * One row of a comment thread, flattened into display order. [depth] 0 is a top-level
+ * reply to the post; [parentId] is the Reddit fullname (`t1_...` or `t3_...`) of the
+ * comment or post it answers.
+ */
+sealed class RedditCommentItem {
+    abstract val id: String
+    abstract val parentId: String
+    abstract val depth: Int
+
+    /** [descendantCount] is how many rows after this one are its replies, at any depth. */
+    data class Comment(
+        override val id: String,
+        override val parentId: String,
+        override val depth: Int,
+        val author: String,
+        val body: String,
+        val score: Int,
+        val created: Double,
+        val descendantCount: Int
+    ) : RedditCommentItem()
+
+    /**
+     * Replies Reddit left out of the response. With [childIds] they are fetched through
+     * `morechildren`; without, the thread is too deep and continues on the parent's page.
+     */
+    data class More(
+        override val id: String,
+        override val parentId: String,
+        override val depth: Int,
+        val count: Int,
+        val childIds: List<String>
+    ) : RedditCommentItem()
+}
+
+/** The comment listing of a post's `permalink.json`, already flattened. */
+data class RedditCommentThread(
+    val items: List<RedditCommentItem>
+)
+
+/** Things returned by `api/morechildren`, flat and in response order; depths are not set. */
+data class RedditMoreChildren(
+    val items: List<RedditCommentItem>
+)
@@ -1,9 +1,16 @@
 package com.skipfeed.android.data.model
 
-import com.google.gson.annotations.SerializedName
-
 data class RedditResponse(
-    val data: RedditListing
+    val data: RedditListing,
+    // Counters from decoding this response, when it came through RedditListingDecoder.
+    val decodeStats: ListingDecodeStats? = null
+)
+
+/** Allocation-relevant counters from decoding one listing. */
+data class ListingDecodeStats(
+    val posts: Int = 0,
+    val skippedValues: Int = 0,
+    val retainedChars: Long = 0L
 )
 
 data class RedditListing(
@@ -21,14 +28,16 @@ data class RedditPost(
     val author: String,
     val subreddit: String,
     val score: Int,
-    @SerializedName("num_comments") val numComments: Int,
-    @SerializedName("created_utc") val created: Double,
+    val numComments: Int,
+    val created: Double,
     val url: String,
     val permalink: String,
     val selftext: String?,
     val thumbnail: String?,
     val preview: RedditPreview?,
-    @SerializedName("is_video") val isVideo: Boolean
+    val isVideo: Boolean,
+    // True when selftext was cut down to card length; the full body lives in the post store.
+    val isBodyTruncated: Boolean = false
 ) {
     val redditUrl: String
         get() = "https://www.reddit.com$permalink"
@@ -46,8 +55,16 @@ data class RedditPost(
             thumbnail
         } else null
 
-    val previewImageUrl: String?
-        get() = preview?.images?.firstOrNull()?.source?.url?.replace("&amp;", "&")
+    /** Drops the part of a long self post body that a result card never shows. */
+    fun compactForCard(): RedditPost {
+        val body = selftext ?: return this
+        if (body.length <= CARD_BODY_CHARS) return this
+        return copy(selftext = body.take(CARD_BODY_CHARS), isBodyTruncated = true)
+    }
+
+    companion object {
+        const val CARD_BODY_CHARS = 280
+    }
 }
 
 data class RedditPreview(
@@ -55,8 +72,26 @@ data class RedditPreview(
 )
 
 data class RedditImage(
-    val source: RedditImageSource
-)
+    val source: RedditImageSource,
+    // Downscaled renditions Reddit pre-renders, ascending by width.
+    val resolutions: List<RedditImageSource> = emptyList()
+) {
+    /**
+     * The smallest rendition at least [widthPx] x [heightPx], or the largest one there is
+     * when none covers the target.
+     */
+    fun renditionCovering(widthPx: Int, heightPx: Int): RedditImageSource {
+        var best: RedditImageSource? = null
+        for (candidate in resolutions + source) {
+            if (candidate.width >= widthPx && candidate.height >= heightPx &&
+                (best == null || candidate.width < best.width)
+            ) {
+                best = candidate
+            }
+        }
+        return best ?: source
+    }
+}
 
 data class RedditImageSource(
     val url: String,
@@ -64,6 +99,37 @@ data class RedditImageSource(
     val height: Int
 )
 
+/** Where a page of results came from, so the UI can show how fresh it is. */
+enum class ResultSource {
+    NETWORK,
+    CACHE,
+    REVALIDATED,
+    MEMORY,
+    STORE
+}
+
+/**
+ * Progress of a search fanned out over several subreddits: the merged listing so far,
+ * and how many of the [total] subreddits have answered.
+ */
+data class SubredditFanOutResult(
+    val posts: List<RedditPost>,
+    val completed: Int,
+    val total: Int,
+    val failedSubreddits: List<String>
+) {
+    val isComplete: Boolean
+        get() = completed == total
+}
+
+data class RedditPage(
+    val posts: List<RedditPost>,
+    val after: String?,
+    val source: ResultSource = ResultSource.NETWORK,
+    val ageMillis: Long = 0L,
+    val isStale: Boolean = false
+)
+
 enum class RedditSort(val value: String, val displayName: String) {
     RELEVANCE("relevance", "Relevance"),
     HOT("hot", "Hot"),
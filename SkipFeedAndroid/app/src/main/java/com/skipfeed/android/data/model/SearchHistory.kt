@@ -1,14 +1,66 @@
 package com.skipfeed.android.data.model
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import java.util.*
 
-@Entity(tableName = "search_history")
+/**
+ * One query the user has searched on one platform. Repeats of the same [normalizedQuery]
+ * on a [platform] update this row instead of adding one: [timestamp] is the last time it
+ * was run, [firstUsed] the first, and [useCount] how often.
+ *
+ * [platform] is a [Platform] name and [mode] is how the search was last opened ("Direct"
+ * or "In-App"), so it can be repeated the same way.
+ */
+@Entity(
+    tableName = "search_history",
+    indices = [
+        Index(value = ["normalizedQuery", "platform"], unique = true),
+        Index("timestamp"),
+        Index(value = ["platform", "timestamp"])
+    ]
+)
 data class SearchHistoryItem(
     @PrimaryKey val id: String = UUID.randomUUID().toString(),
     val query: String,
+    val normalizedQuery: String,
     val platform: String,
     val timestamp: Long = System.currentTimeMillis(),
-    val resultCount: Int? = null
+    val firstUsed: Long = timestamp,
+    val useCount: Int = 1,
+    val resultCount: Int? = null,
+    @ColumnInfo(defaultValue = DEFAULT_MODE) val mode: String = DEFAULT_MODE
+) {
+    companion object {
+        const val DEFAULT_MODE = "Direct"
+    }
+}
+
+/**
+ * Full-text index over [SearchHistoryItem.normalizedQuery]. It stores no text of its own:
+ * Room keeps it in step with `search_history` through triggers, keyed by that table's rowid.
+ */
+@Fts4(contentEntity = SearchHistoryItem::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = "search_history_fts")
+data class SearchHistoryFts(
+    val normalizedQuery: String
+)
+
+/** Number of searches run on one [platform], as summed by the database. */
+data class PlatformSearchCount(
+    val platform: String,
+    val count: Int
 )
+
+/** Searches by the local time of day, each query counted at the time it was last used. */
+data class TimeOfDayCounts(
+    val morning: Int = 0,
+    val afternoon: Int = 0,
+    val evening: Int = 0
+) {
+    val total: Int get() = morning + afternoon + evening
+}
@@ -0,0 +1,122 @@
+package com.skipfeed.android.data.model
+
+import androidx.room.Entity
+import androidx.room.Index
+
+/**
+ * One post of a fetched Reddit result page, stored so results survive process death
+ * and stay browsable offline. Rows are grouped by [queryKey] (normalised query + sort +
+ * time filter) and ordered by ([pageIndex], [position]).
+ */
+@Entity(
+    tableName = "reddit_posts",
+    primaryKeys = ["queryKey", "pageIndex", "position"],
+    indices = [Index("postId")]
+)
+data class StoredRedditPost(
+    val queryKey: String,
+    val pageIndex: Int,
+    val position: Int,
+    val postId: String,
+    val title: String,
+    val author: String,
+    val subreddit: String,
+    val score: Int,
+    val numComments: Int,
+    val created: Double,
+    val url: String,
+    val permalink: String,
+    val selftext: String?,
+    val thumbnail: String?,
+    val previewUrl: String?,
+    val previewWidth: Int,
+    val previewHeight: Int,
+    val isVideo: Boolean,
+    // Preview renditions as "width,height,url" lines, see [encodeResolutions].
+    val previewResolutions: String?
+) {
+    fun toRedditPost(): RedditPost = RedditPost(
+        id = postId,
+        title = title,
+        author = author,
+        subreddit = subreddit,
+        score = score,
+        numComments = numComments,
+        created = created,
+        url = url,
+        permalink = permalink,
+        selftext = selftext,
+        thumbnail = thumbnail,
+        preview = previewUrl?.let {
+            RedditPreview(
+                listOf(
+                    RedditImage(
+                        RedditImageSource(it, previewWidth, previewHeight),
+                        decodeResolutions(previewResolutions)
+                    )
+                )
+            )
+        },
+        isVideo = isVideo
+    )
+
+    companion object {
+        fun from(queryKey: String, pageIndex: Int, position: Int, post: RedditPost): StoredRedditPost {
+            val image = post.preview?.images?.firstOrNull()
+            val source = image?.source
+            return StoredRedditPost(
+                queryKey = queryKey,
+                pageIndex = pageIndex,
+                position = position,
+                postId = post.id,
+                title = post.title,
+                author = post.author,
+                subreddit = post.subreddit,
+                score = post.score,
+                numComments = post.numComments,
+                created = post.created,
+                url = post.url,
+                permalink = post.permalink,
+                selftext = post.selftext,
+                thumbnail = post.thumbnail,
+                previewUrl = source?.url,
+                previewWidth = source?.width ?: 0,
+                previewHeight = source?.height ?: 0,
+                isVideo = post.isVideo,
+                previewResolutions = image?.resolutions?.let(::encodeResolutions)
+            )
+        }
+
+        private fun encodeResolutions(resolutions: List<RedditImageSource>): String? {
+            if (resolutions.isEmpty()) return null
+            return resolutions.joinToString("\n") { "${it.width},${it.height},${it.url}" }
+        }
+
+        private fun decodeResolutions(encoded: String?): List<RedditImageSource> {
+            if (encoded.isNullOrEmpty()) return emptyList()
+            return encoded.lineSequence().mapNotNull { line ->
+                val parts = line.split(',', limit = 3)
+                if (parts.size != 3) return@mapNotNull null
+                val width = parts[0].toIntOrNull() ?: return@mapNotNull null
+                val height = parts[1].toIntOrNull() ?: return@mapNotNull null
+                RedditImageSource(parts[2], width, height)
+            }.toList()
+        }
+    }
+}
+
+/**
+ * Paging bookkeeping for a stored page, in the spirit of a RemoteMediator remote-keys
+ * table: which `after` token fetched it, which token continues after it, and when.
+ */
+@Entity(
+    tableName = "reddit_remote_keys",
+    primaryKeys = ["queryKey", "pageIndex"]
+)
+data class RedditRemoteKey(
+    val queryKey: String,
+    val pageIndex: Int,
+    val requestAfter: String?,
+    val nextAfter: String?,
+    val fetchedAt: Long
+)
@@ -0,0 +1,114 @@
+package com.skipfeed.android.data.repository
+
+import com.skipfeed.android.data.api.RedditApiService
+import com.skipfeed.android.data.model.RedditCommentItem
+import com.skipfeed.android.data.model.RedditPost
+import kotlinx.coroutines.CancellationException
+import javax.inject.Inject
+import javax.inject.Singleton
+
+@Singleton
+class RedditCommentRepository @Inject constructor(
+    private val redditApiService: RedditApiService
+) {
+
+    /** The first [RedditApiService.getCommentThread] page of [post]'s comments, flattened. */
+    suspend fun loadThread(post: RedditPost): Result<List<RedditCommentItem>> = request {
+        val response = redditApiService.getCommentThread(path = threadPath(post))
+        if (!response.isSuccessful) throw Exception("Reddit API error: ${response.code()}")
+        response.body()!!.items
+    }
+
+    /**
+     * The rows that replace [more] in [post]'s flattened thread: the replies it stood for,
+     * in display order and at their real depth, followed by a smaller [RedditCommentItem.More]
+     * when Reddit had more ids than one request may ask for.
+     */
+    suspend fun expandMore(post: RedditPost, more: RedditCommentItem.More): Result<List<RedditCommentItem>> = request {
+        if (more.childIds.isEmpty()) continueThread(post, more) else fetchChildren(post, more)
+    }
+
+    // "Continue this thread": load the parent comment's own page and keep its replies.
+    private suspend fun continueThread(post: RedditPost, more: RedditCommentItem.More): List<RedditCommentItem> {
+        val parentId = more.parentId.removePrefix(COMMENT_PREFIX)
+        val response = redditApiService.getCommentThread(path = threadPath(post), comment = parentId)
+        if (!response.isSuccessful) throw Exception("Reddit API error: ${response.code()}")
+        val items = response.body()!!.items
+        val parent = items.firstOrNull() as? RedditCommentItem.Comment ?: return emptyList()
+        // The parent is row 0 at depth 0 there; its replies sit one level below [more]'s parent.
+        val depthShift = more.depth - 1
+        return items.subList(1, 1 + parent.descendantCount).map { it.withDepth(it.depth + depthShift) }
+    }
+
+    private suspend fun fetchChildren(post: RedditPost, more: RedditCommentItem.More): List<RedditCommentItem> {
+        val batch = more.childIds.take(MAX_CHILDREN_PER_REQUEST)
+        val rest = more.childIds.drop(MAX_CHILDREN_PER_REQUEST)
+        val response = redditApiService.getMoreComments(
+            linkId = "t3_${post.id}",
+            children = batch.joinToString(",")
+        )
+        if (!response.isSuccessful) throw Exception("Reddit API error: ${response.code()}")
+
+        val rows = arrangeInThreadOrder(response.body()!!.items, more.parentId, more.depth)
+        if (rest.isEmpty()) return rows
+        return rows + more.copy(count = maxOf(more.count - batch.size, rest.size), childIds = rest)
+    }
+
+    /**
+     * morechildren returns its things flat; lay them out depth-first under [rootParentId]
+     * starting at [rootDepth], and count each comment's descendants. Things whose parent
+     * is not in the batch (it was expanded earlier) go last, at [rootDepth].
+     */
+    private fun arrangeInThreadOrder(
+        things: List<RedditCommentItem>,
+        rootParentId: String,
+        rootDepth: Int
+    ): List<RedditCommentItem> {
+        val byParent = things.groupBy { it.parentId }
+        val out = ArrayList<RedditCommentItem>(things.size)
+        val placed = HashSet<String>()
+
+        fun place(parentId: String, depth: Int) {
+            for (thing in byParent[parentId].orEmpty()) {
+                if (!placed.add(thing.id)) continue
+                val row = out.size
+                out.add(thing)
+                if (thing is RedditCommentItem.Comment) {
+                    place(COMMENT_PREFIX + thing.id, depth + 1)
+                    out[row] = thing.copy(depth = depth, descendantCount = out.size - row - 1)
+                } else {
+                    out[row] = thing.withDepth(depth)
+                }
+            }
+        }
+
+        place(rootParentId, rootDepth)
+        things.filter { it.id !in placed }.forEach { orphan ->
+            place(orphan.parentId, rootDepth)
+        }
+        return out
+    }
+
+    private suspend fun <T> request(block: suspend () -> T): Result<T> {
+        return try {
+            Result.success(block())
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+
+    private fun threadPath(post: RedditPost): String = post.permalink.trim('/') + ".json"
+
+    private fun RedditCommentItem.withDepth(depth: Int): RedditCommentItem = when (this) {
+        is RedditCommentItem.Comment -> copy(depth = depth)
+        is RedditCommentItem.More -> copy(depth = depth)
+    }
+
+    companion object {
+        private const val COMMENT_PREFIX = "t1_"
+        // The documented limit for one morechildren request.
+        private const val MAX_CHILDREN_PER_REQUEST = 100
+    }
+}
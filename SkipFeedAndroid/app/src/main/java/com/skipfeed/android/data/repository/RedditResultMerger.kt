@@ -0,0 +1,60 @@
+package com.skipfeed.android.data.repository
+
+import com.skipfeed.android.data.model.RedditPost
+import com.skipfeed.android.data.model.RedditSort
+import kotlin.math.log10
+import kotlin.math.max
+
+/** A post plus its position in the listing it came from, for rank-only sorts. */
+data class RankedPost(
+    val post: RedditPost,
+    val sourceRank: Int
+)
+
+/**
+ * Merges per-subreddit result runs into one listing ordered by the selected [RedditSort].
+ *
+ * Each run is one page from one subreddit, sorted on its own before it is folded in, so
+ * combining it with what has been merged so far is a linear two-way merge; applying that
+ * as each subreddit answers is a streaming k-way merge that never re-sorts the listing.
+ */
+object RedditResultMerger {
+
+    fun comparatorFor(sort: RedditSort): Comparator<RankedPost> = when (sort) {
+        RedditSort.TOP -> compareByDescending<RankedPost> { it.post.score }.thenBy { it.sourceRank }
+        RedditSort.NEW -> compareByDescending<RankedPost> { it.post.created }.thenBy { it.sourceRank }
+        RedditSort.COMMENTS -> compareByDescending<RankedPost> { it.post.numComments }.thenBy { it.sourceRank }
+        RedditSort.HOT -> compareByDescending<RankedPost> { hotScore(it.post.score, it.post.created) }
+            .thenBy { it.sourceRank }
+        // Relevance scores aren't exposed, so interleave the runs by their own rank.
+        RedditSort.RELEVANCE -> compareBy { it.sourceRank }
+    }
+
+    fun merge(merged: List<RankedPost>, run: List<RankedPost>, comparator: Comparator<RankedPost>): List<RankedPost> {
+        if (run.isEmpty()) return merged
+        if (merged.isEmpty()) return run
+        val result = ArrayList<RankedPost>(merged.size + run.size)
+        var i = 0
+        var j = 0
+        while (i < merged.size && j < run.size) {
+            // Ties keep the earlier arrival first, so the merge is stable.
+            if (comparator.compare(run[j], merged[i]) < 0) {
+                result.add(run[j++])
+            } else {
+                result.add(merged[i++])
+            }
+        }
+        while (i < merged.size) result.add(merged[i++])
+        while (j < run.size) result.add(run[j++])
+        return result
+    }
+
+    /** Reddit's published "hot" ranking: log-scaled score plus a recency bonus. */
+    fun hotScore(score: Int, createdUtcSeconds: Double): Double {
+        val order = log10(max(kotlin.math.abs(score), 1).toDouble())
+        val sign = score.compareTo(0)
+        return sign * order + (createdUtcSeconds - HOT_EPOCH_SECONDS) / 45_000.0
+    }
+
+    private const val HOT_EPOCH_SECONDS = 1_134_028_003.0
+}
@@ -2,38 +2,163 @@ package com.skipfeed.android.data.repository
 
 import android.content.Context
 import android.content.Intent
+import android.os.SystemClock
+import androidx.paging.Pager
+import androidx.paging.PagingConfig
+import androidx.paging.PagingData
+import com.skipfeed.android.data.api.ConnectionWarmer
 import com.skipfeed.android.data.api.RedditApiService
+import com.skipfeed.android.data.api.LatencyStats
+import com.skipfeed.android.data.api.RedditCachePolicy
+import com.skipfeed.android.data.api.RedditRateLimiter
+import com.skipfeed.android.data.api.RequestPriority
+import com.skipfeed.android.data.api.SearchLatencyTracker
+import com.skipfeed.android.data.cache.CacheStats
+import com.skipfeed.android.data.cache.RedditPageCache
+import com.skipfeed.android.data.cache.RedditPageKey
+import com.skipfeed.android.data.cache.RedditPostStore
+import com.skipfeed.android.data.cache.SingleFlight
+import com.skipfeed.android.data.database.LegacySearchHistoryImporter
 import com.skipfeed.android.data.database.SearchHistoryDao
 import com.skipfeed.android.data.model.Platform
+import com.skipfeed.android.data.model.PlatformSearchCount
+import com.skipfeed.android.data.model.RedditPage
 import com.skipfeed.android.data.model.RedditPost
+import com.skipfeed.android.data.model.RedditResponse
 import com.skipfeed.android.data.model.RedditSort
 import com.skipfeed.android.data.model.RedditTimeFilter
+import com.skipfeed.android.data.model.ResultSource
 import com.skipfeed.android.data.model.SearchHistoryItem
+import com.skipfeed.android.data.model.SubredditFanOutResult
+import com.skipfeed.android.data.model.TimeOfDayCounts
+import com.skipfeed.android.di.ApplicationScope
+import com.skipfeed.android.di.HedgeClient
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.cancelChildren
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.emitAll
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import kotlinx.coroutines.withTimeoutOrNull
+import retrofit2.Response
+import java.io.IOException
 import javax.inject.Inject
 import javax.inject.Singleton
 
 @Singleton
 class SearchRepository @Inject constructor(
     private val redditApiService: RedditApiService,
+    @HedgeClient private val hedgeRedditApiService: RedditApiService,
+    private val searchLatencyTracker: SearchLatencyTracker,
+    private val rateLimiter: RedditRateLimiter,
     private val searchHistoryDao: SearchHistoryDao,
-    private val context: Context
+    private val legacySearchHistoryImporter: LegacySearchHistoryImporter,
+    private val redditPageCache: RedditPageCache,
+    private val redditPostStore: RedditPostStore,
+    private val connectionWarmer: ConnectionWarmer,
+    private val context: Context,
+    @ApplicationScope applicationScope: CoroutineScope
 ) {
     
-    fun getSearchHistory(): Flow<List<SearchHistoryItem>> {
-        return searchHistoryDao.getAllSearchHistory()
+    // Identical (query, sort, timeFilter, after) requests in flight at once share one
+    // network call and one decode. Priority and forced refresh are part of the key: a USER
+    // call must not inherit a prefetch's scheduling and deadline, and a pull-to-refresh must
+    // not be answered by a call that may have been served from cache.
+    private data class RedditFlightKey(
+        val page: RedditPageKey,
+        val priority: RequestPriority,
+        val forceNetwork: Boolean
+    )
+    
+    private val redditSearchFlight = SingleFlight<RedditFlightKey, Result<RedditPage>>(applicationScope)
+    
+    // Prefetches in flight at once, kept below OkHttp's five requests per host so user
+    // searches always find a free dispatcher slot.
+    private val prefetchPermits = Semaphore(MAX_PARALLEL_PREFETCHES)
+    
+    /**
+     * History limited to [platform] (all platforms when null) and to [fromTimestamp,
+     * untilTimestamp), one [HISTORY_PAGE_SIZE] window at a time. Without [text] it is newest
+     * first; with it, only rows with words starting with each word of [text] are kept, most
+     * frecent first. Reads wait for the one-time import of pre-Room history so it never
+     * appears late.
+     */
+    fun pageSearchHistory(
+        platform: Platform?,
+        text: String = "",
+        fromTimestamp: Long = 0L,
+        untilTimestamp: Long = Long.MAX_VALUE
+    ): Flow<PagingData<SearchHistoryItem>> = flow {
+        legacySearchHistoryImporter.awaitImport()
+        val match = prefixMatch(text)
+        val nowMillis = System.currentTimeMillis()
+        val pager = Pager(
+            config = PagingConfig(pageSize = HISTORY_PAGE_SIZE, enablePlaceholders = true)
+        ) {
+            if (match == null) {
+                if (platform == null) {
+                    searchHistoryDao.pageSearches(fromTimestamp, untilTimestamp)
+                } else {
+                    searchHistoryDao.pageSearchesByPlatform(platform.name, fromTimestamp, untilTimestamp)
+                }
+            } else {
+                if (platform == null) {
+                    searchHistoryDao.matchSearches(match, fromTimestamp, untilTimestamp, nowMillis)
+                } else {
+                    searchHistoryDao.matchSearchesByPlatform(match, platform.name, fromTimestamp, untilTimestamp, nowMillis)
+                }
+            }
+        }
+        emitAll(pager.flow)
+    }
+    
+    // FTS4 expression requiring every word of [text] as a word prefix, e.g. "Cat vid" to
+    // `cat* vid*`. Words are cut down to letters and digits, so nothing the user types can
+    // be read as FTS syntax; keywords like OR only count in upper case, and these are lowered.
+    private fun prefixMatch(text: String): String? {
+        val terms = RedditPageKey.normalizeQuery(text)
+            .split(FTS_SEPARATORS)
+            .filter { it.isNotEmpty() }
+        if (terms.isEmpty()) return null
+        return terms.joinToString(" ") { "$it*" }
+    }
+    
+    fun hasSearchHistory(): Flow<Boolean> = flow {
+        legacySearchHistoryImporter.awaitImport()
+        emitAll(searchHistoryDao.hasHistory())
     }
     
-    suspend fun addToSearchHistory(query: String, platform: Platform) {
+    /** Counted by the database, so statistics never load the history itself. */
+    fun getTimeOfDayCounts(): Flow<TimeOfDayCounts> = flow {
+        legacySearchHistoryImporter.awaitImport()
+        emitAll(searchHistoryDao.getTimeOfDayCounts())
+    }
+    
+    suspend fun addToSearchHistory(
+        query: String,
+        platform: Platform,
+        mode: String = SearchHistoryItem.DEFAULT_MODE
+    ) {
         try {
             android.util.Log.d("SearchRepository", "Creating SearchHistoryItem: query='$query', platform='${platform.name}'")
             val searchHistoryItem = SearchHistoryItem(
-                query = query,
+                query = query.trim(),
+                normalizedQuery = RedditPageKey.normalizeQuery(query),
                 platform = platform.name,
-                timestamp = System.currentTimeMillis()
+                timestamp = System.currentTimeMillis(),
+                mode = mode
             )
-            android.util.Log.d("SearchRepository", "Inserting into database: $searchHistoryItem")
-            searchHistoryDao.insertSearch(searchHistoryItem)
+            android.util.Log.d("SearchRepository", "Recording in database: $searchHistoryItem")
+            // A repeat of a known query only bumps its count, time and mode.
+            searchHistoryDao.upsertSearch(searchHistoryItem)
             android.util.Log.d("SearchRepository", "Successfully inserted search history item")
         } catch (e: Exception) {
             android.util.Log.e("SearchRepository", "Failed to add search to history", e)
@@ -41,11 +166,37 @@ class SearchRepository @Inject constructor(
         }
     }
     
-    suspend fun getRecentQueries(limit: Int = 5): List<String> {
-        return searchHistoryDao.getRecentQueries(limit)
+    suspend fun getSearchHistorySince(sinceTimestamp: Long): List<SearchHistoryItem> {
+        legacySearchHistoryImporter.awaitImport()
+        return searchHistoryDao.getSearchesSince(sinceTimestamp)
+    }
+    
+    /** Searches run per [Platform] name, most used first. */
+    suspend fun getPlatformUsageCounts(): List<PlatformSearchCount> {
+        legacySearchHistoryImporter.awaitImport()
+        return searchHistoryDao.getPlatformCounts()
+    }
+    
+    suspend fun getRecentQueries(limit: Int = 5): List<String> = observeRecentQueries(limit).first()
+
+    /** Latest distinct queries last run after [afterTimestamp], updated as searches are saved. */
+    fun observeRecentQueries(limit: Int = 5, afterTimestamp: Long = 0L): Flow<List<String>> = flow {
+        legacySearchHistoryImporter.awaitImport()
+        emitAll(searchHistoryDao.getRecentQueries(limit, afterTimestamp))
+    }
+    
+    suspend fun deleteSearchHistory(ids: Collection<String>) {
+        if (ids.isEmpty()) return
+        searchHistoryDao.deleteSearches(ids.toList())
+    }
+    
+    suspend fun deleteSearchHistoryBefore(beforeTimestamp: Long) {
+        legacySearchHistoryImporter.awaitImport()
+        searchHistoryDao.deleteOldEntries(beforeTimestamp)
     }
     
     suspend fun clearSearchHistory() {
+        legacySearchHistoryImporter.awaitImport()
         searchHistoryDao.clearAllHistory()
     }
     
@@ -53,29 +204,341 @@ class SearchRepository @Inject constructor(
         query: String,
         sort: RedditSort = RedditSort.RELEVANCE,
         timeFilter: RedditTimeFilter = RedditTimeFilter.ALL,
-        after: String? = null
-    ): Result<Pair<List<RedditPost>, String?>> {
+        after: String? = null,
+        priority: RequestPriority = RequestPriority.USER
+    ): Result<RedditPage> {
+        val key = RedditPageKey.of(query, sort, timeFilter, after)
+        redditPageCache.get(key)?.let { return Result.success(it) }
+        
+        val storedPage = readStoredPage(key)
+        if (storedPage != null && !storedPage.isStale) {
+            redditPageCache.put(key, storedPage)
+            return Result.success(storedPage)
+        }
+        
+        val freshPage = fetchRedditPage(key, query, sort, timeFilter, after, priority)
+        // Offline, an old stored page is better than an error.
+        return if (freshPage.isFailure && storedPage != null) Result.success(storedPage) else freshPage
+    }
+    
+    private suspend fun fetchRedditPage(
+        key: RedditPageKey,
+        query: String,
+        sort: RedditSort,
+        timeFilter: RedditTimeFilter,
+        after: String?,
+        priority: RequestPriority = RequestPriority.USER,
+        forceNetwork: Boolean = false
+    ): Result<RedditPage> = redditSearchFlight.run(RedditFlightKey(key, priority, forceNetwork)) {
+        try {
+            val response = hedgedRedditCall(priority) { api ->
+                api.searchPosts(
+                    query = query,
+                    sort = sort.value,
+                    timeFilter = timeFilter.value,
+                    after = after,
+                    cacheControl = if (forceNetwork) RedditCachePolicy.FORCE_NETWORK else null,
+                    priority = priority
+                )
+            }
+            
+            when {
+                response == null -> Result.failure(IOException("Reddit search timed out"))
+                response.isSuccessful -> {
+                    val page = response.toRedditPage(sort, timeFilter)
+                    redditPageCache.put(key, page)
+                    writeStoredPage(key, page)
+                    Result.success(page)
+                }
+                else -> Result.failure(Exception("Reddit API error: ${response.code()}"))
+            }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+    
+    /**
+     * Runs [call] under the search deadline for [priority]. A user-facing call still pending
+     * after the observed p95 latency gets a second attempt through the hedge client, whose
+     * separate pool guarantees a fresh connection; the first successful response wins and the
+     * other call is cancelled along with its OkHttp exchange. Returns null on deadline.
+     */
+    private suspend fun <T> hedgedRedditCall(
+        priority: RequestPriority,
+        call: suspend (RedditApiService) -> Response<T>
+    ): Response<T>? {
+        var startedAt = SystemClock.elapsedRealtime()
+        var hedged = false
+        val deadlineMillis = if (priority == RequestPriority.USER) USER_SEARCH_DEADLINE_MILLIS else PREFETCH_SEARCH_DEADLINE_MILLIS
+        
+        suspend fun race() = coroutineScope {
+            // (fromHedge, result) of each attempt, in completion order.
+            val attempts = Channel<Pair<Boolean, Result<Response<T>>>>(capacity = 2)
+            launch { attempts.send(false to attemptCall { call(redditApiService) }) }
+            
+            var first = withTimeoutOrNull(searchLatencyTracker.hedgeDelayMillis()) { attempts.receive() }
+            if (first == null && priority == RequestPriority.USER) {
+                hedged = true
+                launch { attempts.send(true to attemptCall { call(hedgeRedditApiService) }) }
+            }
+            if (first == null) first = attempts.receive()
+            // An attempt that threw or got an error status doesn't decide anything while the
+            // other still runs; if both fail, an error response beats an exception.
+            val winner = if (!isUsable(first.second) && hedged) {
+                val second = attempts.receive()
+                if (isUsable(second.second) || first.second.isFailure) second else first
+            } else {
+                first
+            }
+            coroutineContext.cancelChildren()
+            winner
+        }
+        
+        val outcome = withTimeoutOrNull(deadlineMillis) {
+            if (priority == RequestPriority.PREFETCH) {
+                prefetchPermits.withPermit {
+                    awaitPrefetchTurn()
+                    // Time spent queued for quota isn't call latency.
+                    startedAt = SystemClock.elapsedRealtime()
+                    race()
+                }
+            } else {
+                race()
+            }
+        }
+        
+        if (outcome == null) {
+            searchLatencyTracker.recordTimeout(hedged)
+            return null
+        }
+        val (fromHedge, result) = outcome
+        // Error statuses come back fast and would drag the p95 hedge delay down.
+        if (isUsable(result)) {
+            searchLatencyTracker.record(SystemClock.elapsedRealtime() - startedAt, hedged, hedgeWon = fromHedge)
+        }
+        return result.getOrThrow()
+    }
+    
+    // Waits here, suspended, while the limiter has no token to spare for a prefetch,
+    // rather than blocking an OkHttp thread inside the interceptor.
+    private suspend fun awaitPrefetchTurn() {
+        while (true) {
+            val waitMillis = rateLimiter.prefetchWaitMillis()
+            if (waitMillis <= 0L) return
+            delay(waitMillis.coerceIn(MIN_PREFETCH_POLL_MILLIS, MAX_PREFETCH_POLL_MILLIS))
+        }
+    }
+    
+    private fun <T> isUsable(result: Result<Response<T>>): Boolean =
+        result.getOrNull()?.isSuccessful == true
+    
+    private suspend fun <T> attemptCall(block: suspend () -> Response<T>): Result<Response<T>> {
         return try {
-            val response = redditApiService.searchPosts(
+            Result.success(block())
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+    
+    private suspend fun readStoredPage(key: RedditPageKey): RedditPage? {
+        return try {
+            redditPostStore.readPage(key)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            android.util.Log.e("SearchRepository", "Failed to read stored Reddit page", e)
+            null
+        }
+    }
+    
+    private suspend fun writeStoredPage(key: RedditPageKey, page: RedditPage) {
+        try {
+            redditPostStore.writePage(key, page)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            android.util.Log.e("SearchRepository", "Failed to store Reddit page", e)
+        }
+    }
+    
+    /**
+     * Stale-while-revalidate search: emits the in-memory, stored or disk-cached listing
+     * immediately when there is one, then the network result if the local copy was missing or
+     * past its sort's freshness window. A failed revalidation still ends the flow with its
+     * failure, so the caller can stop showing it as in progress; a caller that already has
+     * the local page keeps it, which keeps stored results browsable offline.
+     */
+    fun observeRedditSearch(
+        query: String,
+        sort: RedditSort = RedditSort.RELEVANCE,
+        timeFilter: RedditTimeFilter = RedditTimeFilter.ALL,
+        after: String? = null,
+        forceRefresh: Boolean = false
+    ): Flow<Result<RedditPage>> = flow {
+        val key = RedditPageKey.of(query, sort, timeFilter, after)
+        if (forceRefresh) {
+            emit(fetchRedditPage(key, query, sort, timeFilter, after, forceNetwork = true))
+            return@flow
+        }
+        
+        val memoryPage = redditPageCache.get(key)
+        if (memoryPage != null) {
+            emit(Result.success(memoryPage))
+            return@flow
+        }
+        
+        // The Room store holds decoded rows, so it is cheaper than the HTTP cache and also
+        // survives cache eviction; only fall back to the HTTP cache when it has nothing.
+        val cachedPage = readStoredPage(key) ?: try {
+            redditApiService.searchPosts(
                 query = query,
                 sort = sort.value,
                 timeFilter = timeFilter.value,
-                after = after
+                after = after,
+                cacheControl = RedditCachePolicy.CACHE_ONLY
+            ).takeIf { it.isSuccessful }?.toRedditPage(sort, timeFilter)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            null
+        }
+        
+        if (cachedPage != null) {
+            emit(Result.success(cachedPage))
+            if (!cachedPage.isStale) {
+                redditPageCache.put(key, cachedPage)
+                if (cachedPage.source == ResultSource.CACHE) writeStoredPage(key, cachedPage)
+                return@flow
+            }
+        }
+        
+        emit(fetchRedditPage(key, query, sort, timeFilter, after))
+    }
+    
+    /**
+     * Searches [subreddits] concurrently, at most [MAX_PARALLEL_SUBREDDITS] at a time, and
+     * emits the merged listing each time another subreddit answers, so the fastest one
+     * renders first. Posts are ordered by [sort] and de-duplicated by id across subreddits.
+     */
+    fun observeSubredditFanOut(
+        query: String,
+        subreddits: List<String>,
+        sort: RedditSort = RedditSort.RELEVANCE,
+        timeFilter: RedditTimeFilter = RedditTimeFilter.ALL
+    ): Flow<SubredditFanOutResult> = channelFlow {
+        val comparator = RedditResultMerger.comparatorFor(sort)
+        val permits = Semaphore(MAX_PARALLEL_SUBREDDITS)
+        val answers = Channel<Pair<String, Result<List<RedditPost>>>>(Channel.UNLIMITED)
+        
+        subreddits.forEach { subreddit ->
+            launch {
+                val result = permits.withPermit { fetchSubreddit(subreddit, query, sort, timeFilter) }
+                answers.send(subreddit to result)
+            }
+        }
+        
+        var merged = emptyList<RankedPost>()
+        val seenIds = HashSet<String>()
+        val failed = mutableListOf<String>()
+        repeat(subreddits.size) { index ->
+            val (subreddit, result) = answers.receive()
+            result.fold(
+                onSuccess = { posts ->
+                    val run = posts
+                        .mapIndexedNotNull { rank, post -> if (seenIds.add(post.id)) RankedPost(post, rank) else null }
+                        .sortedWith(comparator)
+                    merged = RedditResultMerger.merge(merged, run, comparator)
+                },
+                onFailure = { failed += subreddit }
             )
-            
-            if (response.isSuccessful) {
-                val redditResponse = response.body()!!
-                val posts = redditResponse.data.children.map { it.data }
-                val afterToken = redditResponse.data.after
-                Result.success(Pair(posts, afterToken))
-            } else {
-                Result.failure(Exception("Reddit API error: ${response.code()}"))
+            send(
+                SubredditFanOutResult(
+                    posts = merged.map { it.post },
+                    completed = index + 1,
+                    total = subreddits.size,
+                    failedSubreddits = failed.toList()
+                )
+            )
+        }
+    }
+    
+    private suspend fun fetchSubreddit(
+        subreddit: String,
+        query: String,
+        sort: RedditSort,
+        timeFilter: RedditTimeFilter
+    ): Result<List<RedditPost>> {
+        return try {
+            val response = hedgedRedditCall(RequestPriority.USER) { api ->
+                api.searchInSubreddit(
+                    subreddit = subreddit,
+                    query = query,
+                    sort = sort.value,
+                    timeFilter = timeFilter.value
+                )
             }
+            when {
+                response == null -> Result.failure(IOException("r/$subreddit timed out"))
+                response.isSuccessful -> Result.success(response.body()!!.data.children.map { it.data })
+                else -> Result.failure(Exception("Reddit API error: ${response.code()}"))
+            }
+        } catch (e: CancellationException) {
+            throw e
         } catch (e: Exception) {
             Result.failure(e)
         }
     }
     
+    /** Pre-connects to Reddit in the background; cheap to call on every hint of an upcoming search. */
+    fun prewarmRedditConnection() {
+        connectionWarmer.warm()
+    }
+    
+    fun redditCacheStats(): CacheStats = redditPageCache.stats()
+    
+    fun redditLatencyStats(): LatencyStats = searchLatencyTracker.stats()
+    
+    fun redditCoalescedCalls(): Long = redditSearchFlight.coalescedCount
+    
+    suspend fun getStoredRedditPost(postId: String): RedditPost? = redditPostStore.getPost(postId)
+    
+    private fun Response<RedditResponse>.toRedditPage(
+        sort: RedditSort,
+        timeFilter: RedditTimeFilter
+    ): RedditPage {
+        val response = body()!!
+        val listing = response.data
+        val raw = raw()
+        response.decodeStats?.let { stats ->
+            android.util.Log.d(
+                "SearchRepository",
+                "Decoded ${stats.posts} posts from ${raw.request.url.encodedPath}: " +
+                    "${stats.skippedValues} values skipped, ${stats.retainedChars} chars kept"
+            )
+        }
+        val source = when {
+            raw.networkResponse == null -> ResultSource.CACHE
+            raw.cacheResponse != null -> ResultSource.REVALIDATED
+            else -> ResultSource.NETWORK
+        }
+        val ageMillis = if (source == ResultSource.CACHE) {
+            (System.currentTimeMillis() - raw.receivedResponseAtMillis).coerceAtLeast(0L)
+        } else {
+            0L
+        }
+        return RedditPage(
+            posts = listing.children.map { it.data },
+            after = listing.after,
+            source = source,
+            ageMillis = ageMillis,
+            isStale = ageMillis > RedditCachePolicy.freshnessSeconds(sort, timeFilter) * 1000L
+        )
+    }
+    
     fun performDirectSearch(query: String, platform: Platform): Boolean {
         return try {
             val intent = if (platform == Platform.TIKTOK && query.isEmpty()) {
@@ -134,4 +597,19 @@ class SearchRepository @Inject constructor(
             )
         }
     }
+    
+    companion object {
+        // Whole-search deadlines, including rate-limit waits, retries and any hedge.
+        private const val USER_SEARCH_DEADLINE_MILLIS = 12_000L
+        private const val PREFETCH_SEARCH_DEADLINE_MILLIS = 30_000L
+        
+        private const val MAX_PARALLEL_SUBREDDITS = 4
+        private const val MAX_PARALLEL_PREFETCHES = 2
+        private const val MIN_PREFETCH_POLL_MILLIS = 20L
+        private const val MAX_PREFETCH_POLL_MILLIS = 500L
+        
+        private const val HISTORY_PAGE_SIZE = 50
+        // Anything but letters and digits splits FTS terms.
+        private val FTS_SEPARATORS = Regex("[^\\p{L}\\p{N}]+")
+    }
 }
@@ -2,6 +2,8 @@ package com.skipfeed.android.di
 
 import android.content.Context
 import androidx.room.Room
+import com.skipfeed.android.data.database.Migrations
+import com.skipfeed.android.data.database.RedditPostDao
 import com.skipfeed.android.data.database.SearchHistoryDao
 import com.skipfeed.android.data.database.SkipFeedDatabase
 import com.skipfeed.android.data.database.UsageAnalyticsDao
@@ -24,7 +26,9 @@ object DatabaseModule {
             SkipFeedDatabase::class.java,
             "skipfeed_database"
         )
-        .fallbackToDestructiveMigration() // Allow database recreation if needed
+        .addMigrations(*Migrations.ALL)
+        // Every upgrade has a migration; only a downgrade may rebuild the database.
+        .fallbackToDestructiveMigrationOnDowngrade()
         .build()
     }
 
@@ -37,4 +41,9 @@ object DatabaseModule {
     fun provideUsageAnalyticsDao(database: SkipFeedDatabase): UsageAnalyticsDao {
         return database.usageAnalyticsDao()
     }
+
+    @Provides
+    fun provideRedditPostDao(database: SkipFeedDatabase): RedditPostDao {
+        return database.redditPostDao()
+    }
 }
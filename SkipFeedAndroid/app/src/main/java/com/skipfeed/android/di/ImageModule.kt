@@ -0,0 +1,62 @@
+package com.skipfeed.android.di
+
+import android.content.Context
+import coil.ImageLoader
+import coil.disk.DiskCache
+import coil.memory.MemoryCache
+import com.skipfeed.android.data.api.RedditRateLimitInterceptor
+import com.skipfeed.android.data.cache.ImageLoadStats
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.android.qualifiers.ApplicationContext
+import dagger.hilt.components.SingletonComponent
+import okhttp3.OkHttpClient
+import okhttp3.logging.HttpLoggingInterceptor
+import javax.inject.Singleton
+
+@Module
+@InstallIn(SingletonComponent::class)
+object ImageModule {
+
+    private const val MEMORY_CACHE_PERCENT = 0.20
+    private const val DISK_CACHE_SIZE_BYTES = 64L * 1024 * 1024
+
+    @Provides
+    @Singleton
+    fun provideImageLoader(
+        @ApplicationContext context: Context,
+        okHttpClient: OkHttpClient,
+        imageLoadStats: ImageLoadStats
+    ): ImageLoader {
+        // Derived from the API client so images share its connection pool and dispatcher.
+        // Coil keeps its own disk cache, so the Reddit HTTP cache, its listing rewrite and
+        // body logging are dropped here, as is API rate limiting, which CDN images don't count against.
+        val imageClient = okHttpClient.newBuilder()
+            .apply {
+                interceptors().removeAll { it is HttpLoggingInterceptor || it is RedditRateLimitInterceptor }
+                networkInterceptors().clear()
+            }
+            .cache(null)
+            .eventListener(imageLoadStats.networkListener)
+            .build()
+
+        return ImageLoader.Builder(context)
+            .okHttpClient(imageClient)
+            .memoryCache {
+                MemoryCache.Builder(context)
+                    .maxSizePercent(MEMORY_CACHE_PERCENT)
+                    .build()
+            }
+            .diskCache {
+                DiskCache.Builder()
+                    .directory(context.cacheDir.resolve("image_cache"))
+                    .maxSizeBytes(DISK_CACHE_SIZE_BYTES)
+                    .build()
+            }
+            // Reddit's image CDN URLs are immutable, so their short cache headers can be ignored.
+            .respectCacheHeaders(false)
+            .eventListener(imageLoadStats.eventListener)
+            .build()
+    }
+}
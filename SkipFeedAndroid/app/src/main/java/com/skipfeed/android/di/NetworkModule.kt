@@ -1,33 +1,77 @@
 package com.skipfeed.android.di
 
+import android.content.Context
+import com.skipfeed.android.BuildConfig
+import com.skipfeed.android.data.api.NetworkTimingEventListener
+import com.skipfeed.android.data.api.NetworkTimingLog
 import com.skipfeed.android.data.api.RedditApiService
+import com.skipfeed.android.data.api.RedditCacheInterceptor
+import com.skipfeed.android.data.api.RedditCachePolicy
+import com.skipfeed.android.data.api.RedditCommentConverterFactory
+import com.skipfeed.android.data.api.RedditListingConverterFactory
+import com.skipfeed.android.data.api.RedditQuotaInterceptor
+import com.skipfeed.android.data.api.RedditRateLimitInterceptor
+import com.skipfeed.android.data.api.RedditRateLimiter
 import dagger.Module
 import dagger.Provides
 import dagger.hilt.InstallIn
+import dagger.hilt.android.qualifiers.ApplicationContext
 import dagger.hilt.components.SingletonComponent
+import okhttp3.Cache
+import okhttp3.ConnectionPool
+import okhttp3.Dispatcher
 import okhttp3.OkHttpClient
+import okhttp3.Protocol
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
-import retrofit2.converter.gson.GsonConverterFactory
+import java.io.File
 import java.util.concurrent.TimeUnit
+import javax.inject.Qualifier
 import javax.inject.Singleton
 
+/** The client (and API built on it) used for hedged second attempts, on its own connection pool. */
+@Qualifier
+@Retention(AnnotationRetention.BINARY)
+annotation class HedgeClient
+
 @Module
 @InstallIn(SingletonComponent::class)
 object NetworkModule {
 
     @Provides
     @Singleton
-    fun provideOkHttpClient(): OkHttpClient {
+    fun provideOkHttpClient(
+        @ApplicationContext context: Context,
+        rateLimiter: RedditRateLimiter,
+        networkTimingLog: NetworkTimingLog
+    ): OkHttpClient {
+        // Request lines only, and only in debug builds: BODY logging buffered and printed
+        // every response. Where the time goes is recorded by the timing listener instead.
         val loggingInterceptor = HttpLoggingInterceptor().apply {
-            level = HttpLoggingInterceptor.Level.BODY
+            level = if (BuildConfig.DEBUG) HttpLoggingInterceptor.Level.BASIC else HttpLoggingInterceptor.Level.NONE
         }
 
+        // Single shared client: every Reddit call goes through this pool so "Load More"
+        // and repeat searches reuse the warm keep-alive / HTTP/2 connection instead of
+        // paying a fresh TLS handshake per page.
         return OkHttpClient.Builder()
+            .connectionPool(ConnectionPool(5, 5, TimeUnit.MINUTES))
+            .protocols(listOf(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .retryOnConnectionFailure(true)
+            .cache(Cache(File(context.cacheDir, "reddit_http"), RedditCachePolicy.DISK_CACHE_SIZE_BYTES))
+            // Paces API calls by Reddit's quota. As a network interceptor it only sees requests
+            // that reach the network, so serving from disk never spends a token.
+            .addNetworkInterceptor(RedditQuotaInterceptor(rateLimiter))
+            .addNetworkInterceptor(RedditCacheInterceptor())
+            // Retries 429/5xx from the network; each retry is paced again by the quota interceptor.
+            .addInterceptor(RedditRateLimitInterceptor())
             .addInterceptor(loggingInterceptor)
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
+            .eventListenerFactory(NetworkTimingEventListener.Factory(networkTimingLog))
+            // Per-search deadlines and hedging live in SearchRepository; these only bound
+            // how long a single stuck socket can hold a call.
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(15, TimeUnit.SECONDS)
+            .writeTimeout(10, TimeUnit.SECONDS)
             .addInterceptor { chain ->
                 val request = chain.request().newBuilder()
                     .addHeader("User-Agent", "SkipFeed Android App/1.0")
@@ -43,7 +87,8 @@ object NetworkModule {
         return Retrofit.Builder()
             .baseUrl("https://www.reddit.com/")
             .client(okHttpClient)
-            .addConverterFactory(GsonConverterFactory.create())
+            .addConverterFactory(RedditListingConverterFactory.create())
+            .addConverterFactory(RedditCommentConverterFactory.create())
             .build()
     }
 
@@ -52,4 +97,31 @@ object NetworkModule {
     fun provideRedditApiService(retrofit: Retrofit): RedditApiService {
         return retrofit.create(RedditApiService::class.java)
     }
+
+    @Provides
+    @Singleton
+    @HedgeClient
+    fun provideHedgeOkHttpClient(okHttpClient: OkHttpClient): OkHttpClient {
+        // Same interceptors, cache and timing listener, but a separate pool: a hedge must
+        // not be multiplexed onto the very connection that is stalling the first attempt.
+        // It also gets its own dispatcher, since the shared one allows only five calls per
+        // host and a hedge queued behind the stalled requests would never start.
+        return okHttpClient.newBuilder()
+            .connectionPool(ConnectionPool(2, 1, TimeUnit.MINUTES))
+            .dispatcher(Dispatcher())
+            .build()
+    }
+
+    @Provides
+    @Singleton
+    @HedgeClient
+    fun provideHedgeRedditApiService(@HedgeClient okHttpClient: OkHttpClient): RedditApiService {
+        return Retrofit.Builder()
+            .baseUrl("https://www.reddit.com/")
+            .client(okHttpClient)
+            .addConverterFactory(RedditListingConverterFactory.create())
+            .addConverterFactory(RedditCommentConverterFactory.create())
+            .build()
+            .create(RedditApiService::class.java)
+    }
 }
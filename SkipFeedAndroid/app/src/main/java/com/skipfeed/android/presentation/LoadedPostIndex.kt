@@ -0,0 +1,197 @@
+package com.skipfeed.android.presentation
+
+import com.skipfeed.android.data.model.RedditSort
+import com.skipfeed.android.data.repository.RedditResultMerger
+
+/** Narrows the loaded posts to one subreddit and/or one media type; null means any. */
+data class PostFilter(
+    val subreddit: String? = null,
+    val mediaKind: RedditMediaKind? = null
+) {
+    val isEmpty: Boolean
+        get() = subreddit == null && mediaKind == null
+
+    companion object {
+        val NONE = PostFilter()
+    }
+}
+
+data class FacetCount<T>(
+    val value: T,
+    val count: Int
+)
+
+/**
+ * In-memory index over the posts loaded for the current search, so the list can be
+ * re-sorted and narrowed by subreddit or media type without another request.
+ *
+ * Sort keys are kept in primitive columns and every sort order is a permutation of row
+ * numbers, built the first time that sort is asked for. Appending a page sorts only the
+ * new rows and merges them into each order already built. Rows read through to the
+ * loaded [PagedList], so page compaction stays visible through the index.
+ */
+class LoadedPostIndex private constructor(
+    private val posts: List<RedditPostUiModel>,
+    private val scores: IntArray,
+    private val comments: IntArray,
+    private val created: DoubleArray,
+    private val hot: DoubleArray,
+    // Row -> subreddit id, and id -> display name; ids are assigned by first appearance.
+    private val subredditIds: IntArray,
+    private val subredditNames: List<String>,
+    private val mediaKinds: IntArray,
+    private val orders: MutableMap<RedditSort, IntArray>
+) {
+
+    val size: Int
+        get() = posts.size
+
+    /**
+     * The loaded posts matching [filter], ordered by [sort]; a null [sort] keeps the
+     * order the server returned them in.
+     */
+    fun query(sort: RedditSort?, filter: PostFilter = PostFilter.NONE): List<RedditPostUiModel> {
+        if (sort == null && filter.isEmpty) return posts
+        val order = if (sort == null) null else orderFor(sort)
+        val subredditId = filter.subreddit?.let { subredditNames.indexOf(it) }
+        if (subredditId == -1) return emptyList()
+        val mediaOrdinal = filter.mediaKind?.ordinal
+
+        val rows = IntArray(size)
+        var count = 0
+        for (i in 0 until size) {
+            val row = order?.get(i) ?: i
+            if (subredditId != null && subredditIds[row] != subredditId) continue
+            if (mediaOrdinal != null && mediaKinds[row] != mediaOrdinal) continue
+            rows[count++] = row
+        }
+        return RowView(posts, if (count == size) rows else rows.copyOf(count))
+    }
+
+    /** Posts per subreddit among those of [mediaKind], most common first. */
+    fun subredditFacets(mediaKind: RedditMediaKind?): List<FacetCount<String>> {
+        val counts = IntArray(subredditNames.size)
+        for (row in 0 until size) {
+            if (mediaKind == null || mediaKinds[row] == mediaKind.ordinal) counts[subredditIds[row]]++
+        }
+        return subredditNames.indices
+            .filter { counts[it] > 0 }
+            .sortedWith(compareByDescending<Int> { counts[it] }.thenBy { it })
+            .map { FacetCount(subredditNames[it], counts[it]) }
+    }
+
+    /** Posts per media type among those of [subreddit], in [RedditMediaKind] order. */
+    fun mediaFacets(subreddit: String?): List<FacetCount<RedditMediaKind>> {
+        val subredditId = subreddit?.let { subredditNames.indexOf(it) }
+        val counts = IntArray(RedditMediaKind.values().size)
+        for (row in 0 until size) {
+            if (subredditId == null || subredditIds[row] == subredditId) counts[mediaKinds[row]]++
+        }
+        return RedditMediaKind.values()
+            .filter { counts[it.ordinal] > 0 }
+            .map { FacetCount(it, counts[it.ordinal]) }
+    }
+
+    /** Index over [loaded], whose first [size] rows are the ones this index already covers. */
+    fun appended(loaded: List<RedditPostUiModel>): LoadedPostIndex {
+        val oldSize = size
+        val newSize = loaded.size
+        require(newSize >= oldSize) { "Appended list must extend the indexed one" }
+        if (newSize == oldSize) return this
+
+        val names = ArrayList(subredditNames)
+        val idsByName = HashMap<String, Int>(names.size * 2).apply {
+            names.forEachIndexed { id, name -> put(name, id) }
+        }
+        val index = LoadedPostIndex(
+            posts = loaded,
+            scores = scores.copyOf(newSize),
+            comments = comments.copyOf(newSize),
+            created = created.copyOf(newSize),
+            hot = hot.copyOf(newSize),
+            subredditIds = subredditIds.copyOf(newSize),
+            subredditNames = names,
+            mediaKinds = mediaKinds.copyOf(newSize),
+            orders = HashMap()
+        )
+        for (row in oldSize until newSize) {
+            val item = loaded[row]
+            val post = item.post
+            index.scores[row] = post.score
+            index.comments[row] = post.numComments
+            index.created[row] = post.created
+            index.hot[row] = RedditResultMerger.hotScore(post.score, post.created)
+            index.subredditIds[row] = idsByName.getOrPut(item.subredditLabel) {
+                names.add(item.subredditLabel)
+                names.size - 1
+            }
+            index.mediaKinds[row] = item.mediaKind.ordinal
+        }
+
+        // Carry over the orders already built: sort the new rows and merge them in.
+        synchronized(this) {
+            for ((sort, order) in orders) {
+                val comparator = index.rowComparator(sort)
+                val added = (oldSize until newSize).sortedWith(comparator)
+                index.orders[sort] = mergeRows(order, added, comparator)
+            }
+        }
+        return index
+    }
+
+    @Synchronized
+    private fun orderFor(sort: RedditSort): IntArray {
+        return orders.getOrPut(sort) {
+            (0 until size).sortedWith(rowComparator(sort)).toIntArray()
+        }
+    }
+
+    // Ties fall back to load order, so every sort is stable across appends.
+    private fun rowComparator(sort: RedditSort): Comparator<Int> = when (sort) {
+        RedditSort.TOP -> compareByDescending<Int> { scores[it] }.thenBy { it }
+        RedditSort.NEW -> compareByDescending<Int> { created[it] }.thenBy { it }
+        RedditSort.COMMENTS -> compareByDescending<Int> { comments[it] }.thenBy { it }
+        RedditSort.HOT -> compareByDescending<Int> { hot[it] }.thenBy { it }
+        // Relevance has no local score; the server's order is the best there is.
+        RedditSort.RELEVANCE -> naturalOrder()
+    }
+
+    private fun mergeRows(order: IntArray, added: List<Int>, comparator: Comparator<Int>): IntArray {
+        val result = IntArray(order.size + added.size)
+        var i = 0
+        var j = 0
+        var k = 0
+        while (i < order.size && j < added.size) {
+            result[k++] = if (comparator.compare(added[j], order[i]) < 0) added[j++] else order[i++]
+        }
+        while (i < order.size) result[k++] = order[i++]
+        while (j < added.size) result[k++] = added[j++]
+        return result
+    }
+
+    private class RowView(
+        private val posts: List<RedditPostUiModel>,
+        private val rows: IntArray
+    ) : AbstractList<RedditPostUiModel>(), RandomAccess {
+        override val size: Int
+            get() = rows.size
+
+        override fun get(index: Int): RedditPostUiModel = posts[rows[index]]
+    }
+
+    companion object {
+        val EMPTY = LoadedPostIndex(
+            posts = emptyList(),
+            scores = IntArray(0),
+            comments = IntArray(0),
+            created = DoubleArray(0),
+            hot = DoubleArray(0),
+            subredditIds = IntArray(0),
+            subredditNames = emptyList(),
+            mediaKinds = IntArray(0),
+            orders = HashMap()
+        )
+
+        fun of(loaded: List<RedditPostUiModel>): LoadedPostIndex = EMPTY.appended(loaded)
+    }
+}
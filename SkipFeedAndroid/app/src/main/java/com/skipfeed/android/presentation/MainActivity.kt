@@ -29,6 +29,7 @@ import java.util.Calendar
 import androidx.compose.runtime.rememberCoroutineScope
 import kotlinx.coroutines.launch
 import com.skipfeed.android.data.model.Platform
+import com.skipfeed.android.data.model.SearchHistoryItem
 import com.skipfeed.android.data.repository.UsageAnalyticsRepository
 import com.skipfeed.android.presentation.components.TikTokWebViewDialog
 
@@ -36,6 +37,7 @@ import androidx.compose.material3.*
 import androidx.compose.runtime.*
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.focus.onFocusChanged
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.graphics.vector.ImageVector
 import androidx.compose.ui.layout.ContentScale
@@ -57,6 +59,13 @@ import com.skipfeed.android.R
 import com.skipfeed.android.data.repository.SearchRepository
 import com.skipfeed.android.presentation.screens.history.SearchHistoryScreen
 import dagger.hilt.android.AndroidEntryPoint
+import androidx.hilt.navigation.compose.hiltViewModel
+import androidx.paging.LoadState
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemContentType
+import androidx.paging.compose.itemKey
+import com.skipfeed.android.presentation.screens.history.HistoryListEntry
+import com.skipfeed.android.presentation.screens.history.SearchHistoryViewModel
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
@@ -80,11 +89,13 @@ import androidx.compose.runtime.CompositionLocalProvider
 
 // Data classes
 data class HistoryItem(
+    val id: String,
     val query: String,
     val platform: String,
     val timestamp: String,
     val iconRes: Int,
-    val timestampMillis: Long = 0L // Add actual timestamp for filtering
+    val timestampMillis: Long = 0L, // Add actual timestamp for filtering
+    val mode: String = SearchHistoryItem.DEFAULT_MODE
 )
 
 data class PlatformInfo(
@@ -107,6 +118,9 @@ class MainActivity : ComponentActivity() {
 
         super.onCreate(savedInstanceState)
 
+        // Open the Reddit connection while the splash is still up
+        searchRepository.prewarmRedditConnection()
+
         // Initialize LocalizationManager
         com.skipfeed.android.data.LocalizationManager.getInstance().initialize(this)
 
@@ -319,110 +333,40 @@ fun performSearch(context: android.content.Context, platform: String, query: Str
             }
         }
     }
-
-    // Save to search history
-    saveSearchHistory(context, query, platform, mode)
 }
 
-// Save search history (simplified implementation)
-fun saveSearchHistory(context: android.content.Context, query: String, platform: String, mode: String = "Direct") {
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    val timestamp = java.text.SimpleDateFormat("h:mm:ss a", java.util.Locale.getDefault()).format(java.util.Date())
-
-    // Save the search (in a real app, you'd use a proper database)
-    val historyKey = "${System.currentTimeMillis()}"
-    sharedPrefs.edit()
-        .putString("${historyKey}_query", query)
-        .putString("${historyKey}_platform", platform)
-        .putString("${historyKey}_timestamp", timestamp)
-        .putString("${historyKey}_mode", mode)
-        .apply()
+// Map stored history rows to what the history list shows; one formatter for the batch
+fun toHistoryItems(items: List<SearchHistoryItem>): List<HistoryItem> {
+    val timeFormat = java.text.SimpleDateFormat("h:mm:ss a", java.util.Locale.getDefault())
+    return items.map { it.toHistoryItem(timeFormat) }
 }
 
-// Load search history
-fun loadSearchHistory(context: android.content.Context): List<HistoryItem> {
-    // Don't auto-clean - only clean when explicitly requested
-
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    val allEntries = sharedPrefs.all
-    val historyItems = mutableListOf<HistoryItem>()
-
-    // Group entries by timestamp
-    val groupedEntries = allEntries.keys
-        .filter { it.endsWith("_query") }
-        .map { it.replace("_query", "") }
-        .sortedByDescending { it.toLongOrNull() ?: 0L }
-        .take(10) // Show last 10 searches
-
-    for (key in groupedEntries) {
-        val query = sharedPrefs.getString("${key}_query", "") ?: ""
-        val platform = sharedPrefs.getString("${key}_platform", "") ?: ""
-        val timestamp = sharedPrefs.getString("${key}_timestamp", "") ?: ""
-
-        // Filter out invalid entries and timestamps
-        if (query.isNotEmpty() && platform.isNotEmpty() && timestamp.isNotEmpty()) {
-            // For timestamp validation, check if the key (which is the actual timestamp) is valid
-            val timestampLong = key.toLongOrNull() ?: 0L
-            val year2020 = 1577836800000L // Jan 1, 2020 in milliseconds
-            val now = System.currentTimeMillis()
-
-            // Only include entries with valid timestamps (after 2020 and not in the future)
-            if (timestampLong > 0L && timestampLong >= year2020 && timestampLong <= now) {
-                val iconRes = when (platform) {
-                    "Reddit" -> R.drawable.icon_reddit
-                    "YouTube" -> R.drawable.icon_youtube
-                    "X" -> R.drawable.icon_x
-                    "TikTok" -> R.drawable.icon_tiktok
-                    "Instagram" -> R.drawable.icon_instagram
-                    "Facebook" -> R.drawable.icon_facebook
-                    else -> R.drawable.icon_reddit
-                }
-                historyItems.add(HistoryItem(query, platform, timestamp, iconRes, timestampLong))
-            }
-        }
-    }
-
-    // Return empty list if no valid history found
-    // Don't return sample data as it causes 1970 date issues
-
-    return historyItems
-}
-
-// Delete search history item
-fun deleteSearchHistory(context: android.content.Context, item: HistoryItem) {
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    val allEntries = sharedPrefs.all
-    val editor = sharedPrefs.edit()
-
-    // Find and delete the matching entry
-    for ((key, _) in allEntries) {
-        if (key.endsWith("_query")) {
-            val baseKey = key.replace("_query", "")
-            val query = sharedPrefs.getString("${baseKey}_query", "")
-            val platform = sharedPrefs.getString("${baseKey}_platform", "")
-            val timestamp = sharedPrefs.getString("${baseKey}_timestamp", "")
-
-            // Match by query and platform (timestamp might be formatted differently)
-            if (query == item.query && platform == item.platform) {
-                editor.remove("${baseKey}_query")
-                editor.remove("${baseKey}_platform")
-                editor.remove("${baseKey}_timestamp")
-                editor.remove("${baseKey}_mode")
-
-                // Also try to remove any other related keys
-                editor.remove(baseKey) // In case there's a base key without suffix
-                break
-            }
-        }
+// Map one stored history row to what the history list shows
+fun SearchHistoryItem.toHistoryItem(timeFormat: java.text.SimpleDateFormat): HistoryItem {
+    val item = this
+    val platform = Platform.values().firstOrNull { it.name == item.platform }?.displayName ?: item.platform
+    val iconRes = when (platform) {
+        "Reddit" -> R.drawable.icon_reddit
+        "YouTube" -> R.drawable.icon_youtube
+        "X" -> R.drawable.icon_x
+        "TikTok" -> R.drawable.icon_tiktok
+        "Instagram" -> R.drawable.icon_instagram
+        "Facebook" -> R.drawable.icon_facebook
+        else -> R.drawable.icon_reddit
     }
-    editor.apply()
+    return HistoryItem(
+        id = item.id,
+        query = item.query,
+        platform = platform,
+        timestamp = timeFormat.format(java.util.Date(item.timestamp)),
+        iconRes = iconRes,
+        timestampMillis = item.timestamp,
+        mode = item.mode
+    )
 }
 
-// Clear all search history (both SharedPreferences and Room database)
+// Clear all search history (recent search chips and the Room database)
 fun clearAllHistory(context: android.content.Context, searchRepository: SearchRepository? = null, usageAnalyticsRepository: UsageAnalyticsRepository? = null) {
-    // Clear SharedPreferences (legacy storage)
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    sharedPrefs.edit().clear().apply()
     clearRecentSearches(context)
 
     // Clear Room database if repositories are available
@@ -445,140 +389,15 @@ fun clearAllHistory(context: android.content.Context, searchRepository: SearchRe
     }
 }
 
-// Clean invalid history entries (like Jan 1, 1970)
-fun cleanInvalidHistory(context: android.content.Context) {
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    val allEntries = sharedPrefs.all
-    val editor = sharedPrefs.edit()
-    var removedCount = 0
-
-    // Find and remove invalid entries
-    for ((key, value) in allEntries) {
-        var shouldRemove = false
-
-        if (key.endsWith("_query")) {
-            val baseKey = key.replace("_query", "")
-            val query = sharedPrefs.getString("${baseKey}_query", "") ?: ""
-            val platform = sharedPrefs.getString("${baseKey}_platform", "") ?: ""
-            val timestamp = sharedPrefs.getString("${baseKey}_timestamp", "") ?: ""
-
-            // Check if this is one of the problematic entries
-            // Remove entries with "Skip" or "Skipfeed" queries that seem to be test data
-            if (query == "Skip" || query == "Skipfeed" || query.isEmpty() || query.isBlank()) {
-                shouldRemove = true
-            }
-
-            // Check if baseKey looks like a very old timestamp (close to 0 or before 2020)
-            val baseKeyLong = baseKey.toLongOrNull()
-            if (baseKeyLong != null) {
-                val year2020 = 1577836800000L // Jan 1, 2020 in milliseconds
-                val now = System.currentTimeMillis()
-                if (baseKeyLong <= 0L || baseKeyLong < year2020 || baseKeyLong > now) {
-                    shouldRemove = true
-                }
-            } else {
-                // If baseKey is not a valid timestamp, remove it
-                shouldRemove = true
-            }
-
-            if (shouldRemove) {
-                editor.remove("${baseKey}_query")
-                editor.remove("${baseKey}_platform")
-                editor.remove("${baseKey}_timestamp")
-                editor.remove("${baseKey}_mode")
-                editor.remove(baseKey) // Remove base key too
-                removedCount++
-            }
-        }
-    }
-
-    editor.apply()
-    // Silently clean without showing toast
-}
-
-// Force clean all problematic records including sample data
-fun forceCleanProblematicRecords(context: android.content.Context) {
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    val allEntries = sharedPrefs.all
-    val editor = sharedPrefs.edit()
-    var removedCount = 0
-
-    // Remove any entries that contain "Skip" or "Skipfeed" in the query (sample data)
-    for ((key, value) in allEntries) {
-        val valueStr = value.toString()
-        if (valueStr.contains("Skip", ignoreCase = true) ||
-            valueStr.contains("Skipfeed", ignoreCase = true) ||
-            key.contains("Skip", ignoreCase = true)) {
-            editor.remove(key)
-            removedCount++
-        }
-    }
-
-    editor.apply()
-    // Silently clean without showing toast
-}
-
-// Get search mode for history item
-fun getSearchMode(context: android.content.Context, item: HistoryItem): String {
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    val allEntries = sharedPrefs.all
-
-    // Find the matching entry and get its mode
-    for ((key, _) in allEntries) {
-        if (key.endsWith("_query")) {
-            val baseKey = key.replace("_query", "")
-            val query = sharedPrefs.getString("${baseKey}_query", "")
-            val platform = sharedPrefs.getString("${baseKey}_platform", "")
-            val timestamp = sharedPrefs.getString("${baseKey}_timestamp", "")
-            val mode = sharedPrefs.getString("${baseKey}_mode", "Direct")
-
-            if (query == item.query && platform == item.platform && timestamp == item.timestamp) {
-                return mode ?: "Direct"
-            }
-        }
-    }
-
-    return "Direct" // Default fallback
-}
-
-// Recent search functions
-fun loadRecentSearches(context: android.content.Context): List<String> {
+// Recent search chips are read from the history table; clearing them only records a
+// cut-off, so the History page keeps its entries.
+fun loadRecentSearchesClearedAt(context: android.content.Context): Long {
     val sharedPrefs = context.getSharedPreferences("recent_searches", android.content.Context.MODE_PRIVATE)
-    val recentSearchesString = sharedPrefs.getString("searches", "")
-    return if (recentSearchesString.isNullOrEmpty()) {
-        emptyList()
-    } else {
-        recentSearchesString.split(",").filter { it.isNotBlank() }
-    }
+    return sharedPrefs.getLong("cleared_at", 0L)
 }
 
-fun saveRecentSearch(context: android.content.Context, query: String) {
-    val sharedPrefs = context.getSharedPreferences("recent_searches", android.content.Context.MODE_PRIVATE)
-    val currentSearches = loadRecentSearches(context).toMutableList()
-
-    // Remove if already exists
-    currentSearches.remove(query)
-
-    // Add to beginning
-    currentSearches.add(0, query)
-
-    // Keep only last 10 searches
-    if (currentSearches.size > 10) {
-        currentSearches.removeAt(currentSearches.size - 1)
-    }
-
-    // Save back
-    sharedPrefs.edit()
-        .putString("searches", currentSearches.joinToString(","))
-        .apply()
-}
-
-// Save to both recent searches and search history database
-fun saveSearchToHistory(context: android.content.Context, query: String, platform: String, searchRepository: SearchRepository) {
-    // Save to recent searches (for Recent Search chips)
-    saveRecentSearch(context, query)
-
-    // Save to search history database (for History page)
+// Save to the search history database (History page and Recent Search chips)
+fun saveSearchToHistory(context: android.content.Context, query: String, platform: String, mode: String, searchRepository: SearchRepository) {
     CoroutineScope(Dispatchers.IO).launch {
         try {
             val platformEnum = when (platform) {
@@ -592,7 +411,7 @@ fun saveSearchToHistory(context: android.content.Context, query: String, platfor
             }
 
             android.util.Log.d("SearchHistory", "Saving search: query='$query', platform='$platform' -> $platformEnum")
-            searchRepository.addToSearchHistory(query, platformEnum)
+            searchRepository.addToSearchHistory(query, platformEnum, mode)
             android.util.Log.d("SearchHistory", "Search saved successfully")
         } catch (e: Exception) {
             android.util.Log.e("SearchHistory", "Failed to save search history", e)
@@ -601,9 +420,12 @@ fun saveSearchToHistory(context: android.content.Context, query: String, platfor
     }
 }
 
-fun clearRecentSearches(context: android.content.Context) {
+fun clearRecentSearches(context: android.content.Context): Long {
+    val clearedAt = System.currentTimeMillis()
     val sharedPrefs = context.getSharedPreferences("recent_searches", android.content.Context.MODE_PRIVATE)
-    sharedPrefs.edit().clear().apply()
+    // clear() also drops the comma-separated list older versions kept here
+    sharedPrefs.edit().clear().putLong("cleared_at", clearedAt).apply()
+    return clearedAt
 }
 
 @Composable
@@ -648,13 +470,18 @@ fun SearchScreen(navController: NavHostController, searchRepository: SearchRepos
     val context = LocalContext.current
     val coroutineScope = rememberCoroutineScope()
 
-    // Load recent searches - refresh when needed
-    var recentSearches by remember { mutableStateOf(loadRecentSearches(context)) }
+    // Recent searches follow the history table, so a saved search shows up on its own
+    var recentSearchesClearedAt by remember { mutableStateOf(loadRecentSearchesClearedAt(context)) }
+    val recentSearches by remember(recentSearchesClearedAt) {
+        searchRepository.observeRecentQueries(5, recentSearchesClearedAt)
+    }.collectAsState(initial = emptyList())
 
     // Reset search mode when platform changes (only Reddit supports In-App)
     LaunchedEffect(selectedPlatform) {
         if (selectedPlatform != "Reddit") {
             searchMode = "Direct"
+        } else {
+            searchRepository.prewarmRedditConnection()
         }
     }
 
@@ -851,7 +678,13 @@ fun SearchScreen(navController: NavHostController, searchRepository: SearchRepos
                     BasicTextField(
                         value = searchQuery,
                         onValueChange = { searchQuery = it },
-                        modifier = Modifier.weight(1f),
+                        modifier = Modifier
+                            .weight(1f)
+                            .onFocusChanged { focusState ->
+                                if (focusState.isFocused && selectedPlatform == "Reddit") {
+                                    searchRepository.prewarmRedditConnection()
+                                }
+                            },
                         textStyle = TextStyle(
                             fontSize = 16.sp,
                             color = Color.Black
@@ -970,9 +803,8 @@ fun SearchScreen(navController: NavHostController, searchRepository: SearchRepos
                                 usageAnalyticsRepository.recordSearch(platform)
                             }
 
-                            // Save to both recent searches and search history database
-                            saveSearchToHistory(context, searchQuery, selectedPlatform, searchRepository)
-                            recentSearches = loadRecentSearches(context) // Refresh UI
+                            // Save to the search history database, which also feeds the recent search chips
+                            saveSearchToHistory(context, searchQuery, selectedPlatform, searchMode, searchRepository)
 
                             if (selectedPlatform == "Reddit" && searchMode == "In-App") {
                                 // Navigate to in-app Reddit search
@@ -1077,8 +909,7 @@ fun SearchScreen(navController: NavHostController, searchRepository: SearchRepos
 
                     TextButton(
                         onClick = {
-                            clearRecentSearches(context)
-                            recentSearches = emptyList() // Update UI immediately
+                            recentSearchesClearedAt = clearRecentSearches(context)
                         },
                         contentPadding = PaddingValues(0.dp)
                     ) {
@@ -1102,9 +933,8 @@ fun SearchScreen(navController: NavHostController, searchRepository: SearchRepos
                             query = recentSearch,
                             onClick = {
                                 searchQuery = recentSearch
-                                // Save to both recent searches and search history database
-                                saveSearchToHistory(context, recentSearch, selectedPlatform, searchRepository)
-                                recentSearches = loadRecentSearches(context) // Refresh UI
+                                // Save to the search history database, which also feeds the recent search chips
+                                saveSearchToHistory(context, recentSearch, selectedPlatform, searchMode, searchRepository)
 
                                 if (selectedPlatform == "Reddit" && searchMode == "In-App") {
                                     navController.navigate("reddit_search/${java.net.URLEncoder.encode(recentSearch, "UTF-8")}")
@@ -1236,15 +1066,30 @@ fun SearchModeButton(
 }
 
 @Composable
-fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository: UsageAnalyticsRepository) {
+fun HistoryScreen(
+    searchRepository: SearchRepository,
+    usageAnalyticsRepository: UsageAnalyticsRepository,
+    viewModel: SearchHistoryViewModel = hiltViewModel()
+) {
     val context = LocalContext.current
-    var historyItems by remember { mutableStateOf(loadSearchHistory(context)) }
-    var searchQuery by remember { mutableStateOf("") }
-    var selectedFilter by remember { mutableStateOf("All") }
-    var selectedTimeFilter by remember { mutableStateOf("All Time") }
+    // Paged out of Room: only the rows around the viewport are loaded
+    val historyEntries = viewModel.history.collectAsLazyPagingItems()
+    val hasHistory by viewModel.hasHistory.collectAsState()
+    val historyFilter by viewModel.filter.collectAsState()
+    val historyUiState by viewModel.uiState.collectAsState()
+    val searchQuery = historyFilter.text
+    val selectedFilter = historyFilter.platform
+    val selectedTimeFilter = historyFilter.timeRange
     var showTimeFilterMenu by remember { mutableStateOf(false) }
-    var isSelectionMode by remember { mutableStateOf(false) }
-    var selectedItems by remember { mutableStateOf(setOf<String>()) }
+    val isSelectionMode = historyUiState.isSelectionMode
+    val selectedItems = historyUiState.selectedItems
+
+    LaunchedEffect(historyUiState.error) {
+        historyUiState.error?.let { error ->
+            Toast.makeText(context, "Couldn't update history: $error", Toast.LENGTH_SHORT).show()
+            viewModel.clearError()
+        }
+    }
 
     Column(
         modifier = Modifier
@@ -1279,7 +1124,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                 // Search bar
                 OutlinedTextField(
                     value = searchQuery,
-                    onValueChange = { searchQuery = it },
+                    onValueChange = { viewModel.updateText(it) },
                     placeholder = {
                         Text(
                             "Search history",
@@ -1370,7 +1215,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                                     }
                                 },
                                 onClick = {
-                                    selectedTimeFilter = filter
+                                    viewModel.updateTimeRange(filter)
                                     showTimeFilterMenu = false
                                 }
                             )
@@ -1391,7 +1236,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                     FilterChip(
                         text = platform,
                         isSelected = selectedFilter == platform,
-                        onClick = { selectedFilter = platform }
+                        onClick = { viewModel.updatePlatform(platform) }
                     )
                 }
             }
@@ -1411,10 +1256,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                     ) {
                         // Cancel button
                         Button(
-                            onClick = {
-                                isSelectionMode = false
-                                selectedItems = setOf()
-                            },
+                            onClick = { viewModel.toggleSelectionMode() },
                             colors = ButtonDefaults.buttonColors(
                                 containerColor = Color(0xFFFF3B30).copy(alpha = 0.1f),
                                 contentColor = Color(0xFFFF3B30)
@@ -1433,10 +1275,15 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                         // Select All button
                         Button(
                             onClick = {
-                                selectedItems = if (selectedItems.size == historyItems.size) {
-                                    setOf() // Deselect all
+                                if (historyUiState.allSelected) {
+                                    viewModel.clearSelection() // Deselect all
                                 } else {
-                                    historyItems.map { "${it.query}_${it.platform}_${it.timestamp}" }.toSet() // Select all
+                                    // Select all loaded searches
+                                    viewModel.selectAllItems(
+                                        historyEntries.itemSnapshotList.items
+                                            .filterIsInstance<HistoryListEntry.Search>()
+                                            .map { it.key }
+                                    )
                                 }
                             },
                             colors = ButtonDefaults.buttonColors(
@@ -1448,7 +1295,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                             contentPadding = PaddingValues(horizontal = 12.dp, vertical = 6.dp)
                         ) {
                             Text(
-                                text = if (selectedItems.size == historyItems.size) "Deselect All" else "Select All",
+                                text = if (historyUiState.allSelected) "Deselect All" else "Select All",
                                 fontSize = 12.sp,
                                 fontWeight = FontWeight.Medium
                             )
@@ -1460,17 +1307,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                         Button(
                             onClick = {
                                 // Delete selected items
-                                selectedItems.forEach { itemKey ->
-                                    val matchingItem = historyItems.find { historyItem ->
-                                        "${historyItem.query}_${historyItem.platform}_${historyItem.timestamp}" == itemKey
-                                    }
-                                    matchingItem?.let { item ->
-                                        deleteSearchHistory(context, item)
-                                    }
-                                }
-                                historyItems = loadSearchHistory(context)
-                                selectedItems = setOf()
-                                isSelectionMode = false
+                                viewModel.deleteSelectedItems()
                             },
                             colors = ButtonDefaults.buttonColors(
                                 containerColor = Color(0xFFFF3B30).copy(alpha = 0.1f),
@@ -1488,7 +1325,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                         }
                     }
                 }
-            } else if (historyItems.isNotEmpty()) {
+            } else if (hasHistory) {
                 // Normal mode: Select and Clear All buttons
                 Row(
                     modifier = Modifier.fillMaxWidth(),
@@ -1496,7 +1333,7 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                 ) {
                     // Select button
                     Button(
-                        onClick = { isSelectionMode = true },
+                        onClick = { viewModel.toggleSelectionMode() },
                         colors = ButtonDefaults.buttonColors(
                             containerColor = Color(0xFF007AFF).copy(alpha = 0.1f),
                             contentColor = Color(0xFF007AFF)
@@ -1516,7 +1353,6 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                     Button(
                         onClick = {
                             clearAllHistory(context, searchRepository, usageAnalyticsRepository)
-                            historyItems = loadSearchHistory(context)
                         },
                         colors = ButtonDefaults.buttonColors(
                             containerColor = Color(0xFFFF3B30).copy(alpha = 0.1f),
@@ -1537,61 +1373,11 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
         }
 
         // CONTENT SECTION - Search records appear HERE (below header)
-        // Filter items based on search query, platform, and time
-        val filteredItems = historyItems.filter { item ->
-            // Search query filter
-            val matchesSearch = if (searchQuery.isBlank()) true
-                else item.query.contains(searchQuery, ignoreCase = true)
-
-            // Platform filter
-            val matchesPlatform = if (selectedFilter == "All") true
-                else item.platform == selectedFilter
-
-            // Time filter - fixed with proper Calendar calculations
-            val matchesTime = when (selectedTimeFilter) {
-                "Today" -> {
-                    val calendar = java.util.Calendar.getInstance()
-                    calendar.set(java.util.Calendar.HOUR_OF_DAY, 0)
-                    calendar.set(java.util.Calendar.MINUTE, 0)
-                    calendar.set(java.util.Calendar.SECOND, 0)
-                    calendar.set(java.util.Calendar.MILLISECOND, 0)
-                    val todayStart = calendar.timeInMillis
-                    item.timestampMillis >= todayStart
-                }
-                "Yesterday" -> {
-                    val calendar = java.util.Calendar.getInstance()
-                    // Start of today
-                    calendar.set(java.util.Calendar.HOUR_OF_DAY, 0)
-                    calendar.set(java.util.Calendar.MINUTE, 0)
-                    calendar.set(java.util.Calendar.SECOND, 0)
-                    calendar.set(java.util.Calendar.MILLISECOND, 0)
-                    val todayStart = calendar.timeInMillis
-
-                    // Start of yesterday
-                    calendar.add(java.util.Calendar.DAY_OF_MONTH, -1)
-                    val yesterdayStart = calendar.timeInMillis
-
-                    item.timestampMillis >= yesterdayStart && item.timestampMillis < todayStart
-                }
-                "This Week" -> {
-                    val calendar = java.util.Calendar.getInstance()
-                    calendar.add(java.util.Calendar.DAY_OF_MONTH, -7)
-                    val weekStart = calendar.timeInMillis
-                    item.timestampMillis >= weekStart
-                }
-                "This Month" -> {
-                    val calendar = java.util.Calendar.getInstance()
-                    calendar.add(java.util.Calendar.DAY_OF_MONTH, -30)
-                    val monthStart = calendar.timeInMillis
-                    item.timestampMillis >= monthStart
-                }
-                else -> true // "All Time" - show everything
-            }
-
-            matchesSearch && matchesPlatform && matchesTime
-        }
+        // Platform, time and text filters are applied by the database query
+        val isEmpty = historyEntries.itemCount == 0 &&
+            historyEntries.loadState.refresh is LoadState.NotLoading
 
-        if (filteredItems.isEmpty()) {
+        if (isEmpty) {
             Column(
                 modifier = Modifier
                     .fillMaxSize()
@@ -1621,134 +1407,137 @@ fun HistoryScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                     .padding(horizontal = 20.dp)
                     .padding(bottom = 100.dp)
             ) {
-                // Group by date and show records
-                item {
-                    Text(
-                        text = "Today",
-                        fontSize = 18.sp,
-                        fontWeight = FontWeight.SemiBold,
-                        color = Color(0xFF8E8E93),
-                        modifier = Modifier.padding(vertical = 8.dp)
-                    )
+                // Records grouped under day headers; placeholder slots stay empty until loaded
+                items(
+                    count = historyEntries.itemCount,
+                    key = historyEntries.itemKey { it.key },
+                    contentType = historyEntries.itemContentType { it::class }
+                ) { index ->
+                    when (val entry = historyEntries[index]) {
+                        null -> Spacer(modifier = Modifier.fillMaxWidth().height(72.dp))
+                        is HistoryListEntry.DayHeader -> Text(
+                            text = entry.label,
+                            fontSize = 18.sp,
+                            fontWeight = FontWeight.SemiBold,
+                            color = Color(0xFF8E8E93),
+                            modifier = Modifier.padding(vertical = 8.dp)
+                        )
+                        is HistoryListEntry.Search -> HistoryRecordCard(
+                            historyItem = entry.item,
+                            isSelectionMode = isSelectionMode,
+                            isSelected = selectedItems.contains(entry.key),
+                            onToggleSelection = { viewModel.toggleItemSelection(entry.key) },
+                            onDelete = { viewModel.deleteHistoryItem(entry.key) },
+                            onRepeat = {
+                                saveSearchToHistory(context, entry.item.query, entry.item.platform, entry.item.mode, searchRepository)
+                                performSearch(context, entry.item.platform, entry.item.query, entry.item.mode)
+                            }
+                        )
+                    }
                 }
+            }
+        }
+    }
+}
 
-                items(filteredItems) { historyItem ->
-                    val itemKey = "${historyItem.query}_${historyItem.platform}_${historyItem.timestamp}"
-
-                    Card(
-                        modifier = Modifier
-                            .fillMaxWidth()
-                            .padding(vertical = 4.dp)
-                            .clickable {
-                                if (isSelectionMode) {
-                                    selectedItems = if (selectedItems.contains(itemKey)) {
-                                        selectedItems - itemKey
-                                    } else {
-                                        selectedItems + itemKey
-                                    }
-                                } else {
-                                    // Restore/repeat search
-                                    val originalMode = getSearchMode(context, historyItem)
-                                    performSearch(context, historyItem.platform, historyItem.query, originalMode)
-                                }
-                            },
-                        colors = CardDefaults.cardColors(containerColor = Color.White),
-                        shape = RoundedCornerShape(16.dp)
-                    ) {
-                        Row(
-                            modifier = Modifier
-                                .fillMaxWidth()
-                                .padding(16.dp),
-                            verticalAlignment = Alignment.CenterVertically
-                        ) {
-                            // Selection toggle (if in selection mode) - circular like iOS
-                            if (isSelectionMode) {
-                                Box(
-                                    modifier = Modifier
-                                        .size(24.dp)
-                                        .background(
-                                            if (selectedItems.contains(itemKey)) Color(0xFF007AFF) else Color.Transparent,
-                                            CircleShape
-                                        )
-                                        .border(
-                                            2.dp,
-                                            if (selectedItems.contains(itemKey)) Color(0xFF007AFF) else Color(0xFFE5E5EA),
-                                            CircleShape
-                                        )
-                                        .clickable {
-                                            selectedItems = if (selectedItems.contains(itemKey)) {
-                                                selectedItems - itemKey
-                                            } else {
-                                                selectedItems + itemKey
-                                            }
-                                        },
-                                    contentAlignment = Alignment.Center
-                                ) {
-                                    if (selectedItems.contains(itemKey)) {
-                                        Icon(
-                                            imageVector = Icons.Default.Check,
-                                            contentDescription = null,
-                                            tint = Color.White,
-                                            modifier = Modifier.size(14.dp)
-                                        )
-                                    }
-                                }
-                                Spacer(modifier = Modifier.width(12.dp))
-                            }
+@Composable
+private fun HistoryRecordCard(
+    historyItem: HistoryItem,
+    isSelectionMode: Boolean,
+    isSelected: Boolean,
+    onToggleSelection: () -> Unit,
+    onDelete: () -> Unit,
+    onRepeat: () -> Unit
+) {
+    Card(
+        modifier = Modifier
+            .fillMaxWidth()
+            .padding(vertical = 4.dp)
+            .clickable {
+                if (isSelectionMode) {
+                    onToggleSelection()
+                } else {
+                    // Restore/repeat search
+                    onRepeat()
+                }
+            },
+        colors = CardDefaults.cardColors(containerColor = Color.White),
+        shape = RoundedCornerShape(16.dp)
+    ) {
+        Row(
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(16.dp),
+            verticalAlignment = Alignment.CenterVertically
+        ) {
+            // Selection toggle (if in selection mode) - circular like iOS
+            if (isSelectionMode) {
+                Box(
+                    modifier = Modifier
+                        .size(24.dp)
+                        .background(
+                            if (isSelected) Color(0xFF007AFF) else Color.Transparent,
+                            CircleShape
+                        )
+                        .border(
+                            2.dp,
+                            if (isSelected) Color(0xFF007AFF) else Color(0xFFE5E5EA),
+                            CircleShape
+                        )
+                        .clickable { onToggleSelection() },
+                    contentAlignment = Alignment.Center
+                ) {
+                    if (isSelected) {
+                        Icon(
+                            imageVector = Icons.Default.Check,
+                            contentDescription = null,
+                            tint = Color.White,
+                            modifier = Modifier.size(14.dp)
+                        )
+                    }
+                }
+                Spacer(modifier = Modifier.width(12.dp))
+            }
 
-                            Image(
-                                painter = painterResource(id = historyItem.iconRes),
-                                contentDescription = historyItem.platform,
-                                modifier = Modifier.size(24.dp)
-                            )
+            Image(
+                painter = painterResource(id = historyItem.iconRes),
+                contentDescription = historyItem.platform,
+                modifier = Modifier.size(24.dp)
+            )
 
-                            Spacer(modifier = Modifier.width(12.dp))
+            Spacer(modifier = Modifier.width(12.dp))
 
-                            Column(modifier = Modifier.weight(1f)) {
-                                Text(
-                                    text = historyItem.query,
-                                    fontSize = 16.sp,
-                                    fontWeight = FontWeight.Medium,
-                                    color = Color(0xFF1C1C1E)
-                                )
-                                Text(
-                                    text = "${historyItem.platform} • ${historyItem.timestamp}",
-                                    fontSize = 12.sp,
-                                    color = Color(0xFF8E8E93)
-                                )
-                            }
+            Column(modifier = Modifier.weight(1f)) {
+                Text(
+                    text = historyItem.query,
+                    fontSize = 16.sp,
+                    fontWeight = FontWeight.Medium,
+                    color = Color(0xFF1C1C1E)
+                )
+                Text(
+                    text = "${historyItem.platform} • ${historyItem.timestamp}",
+                    fontSize = 12.sp,
+                    color = Color(0xFF8E8E93)
+                )
+            }
 
-                            // Action buttons (if not in selection mode)
-                            if (!isSelectionMode) {
-                                Row {
-                                    IconButton(
-                                        onClick = {
-                                            deleteSearchHistory(context, historyItem)
-                                            historyItems = loadSearchHistory(context)
-                                        }
-                                    ) {
-                                        Icon(
-                                            Icons.Default.Delete,
-                                            contentDescription = "Delete",
-                                            tint = Color(0xFFFF3B30)
-                                        )
-                                    }
+            // Action buttons (if not in selection mode)
+            if (!isSelectionMode) {
+                Row {
+                    IconButton(onClick = onDelete) {
+                        Icon(
+                            Icons.Default.Delete,
+                            contentDescription = "Delete",
+                            tint = Color(0xFFFF3B30)
+                        )
+                    }
 
-                                    IconButton(
-                                        onClick = {
-                                            val originalMode = getSearchMode(context, historyItem)
-                                            performSearch(context, historyItem.platform, historyItem.query, originalMode)
-                                        }
-                                    ) {
-                                        Icon(
-                                            Icons.Default.Refresh,
-                                            contentDescription = "Restore",
-                                            tint = Color(0xFF007AFF)
-                                        )
-                                    }
-                                }
-                            }
-                        }
+                    IconButton(onClick = onRepeat) {
+                        Icon(
+                            Icons.Default.Refresh,
+                            contentDescription = "Restore",
+                            tint = Color(0xFF007AFF)
+                        )
                     }
                 }
             }
@@ -1961,7 +1750,7 @@ fun SettingsScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                     automaticPlatformOrder = it
                     saveUserPreferences(context, "automatic_platform_order", it)
                     // Apply platform ordering change immediately
-                    applyPlatformOrderingChange(context, it)
+                    applyPlatformOrderingChange(context, it, searchRepository)
                 },
                     onExportClick = { showDataExport = true },
                     onClearDataClick = { showClearDataDialog = true }
@@ -2013,7 +1802,7 @@ fun SettingsScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
         DataExportDialog(
             onDismiss = { showDataExport = false },
             onExport = { format, timeRange, content ->
-                exportSearchData(context, format, timeRange, content)
+                exportSearchData(context, searchRepository, format, timeRange, content)
                 showDataExport = false
             }
         )
@@ -2049,7 +1838,7 @@ fun SettingsScreen(searchRepository: SearchRepository, usageAnalyticsRepository:
                 dataRetentionPeriod = period
                 saveUserPreferences(context, "data_retention_period", period)
                 // Apply retention policy immediately
-                applyDataRetentionPolicy(context, period)
+                applyDataRetentionPolicy(context, searchRepository, period)
                 showRetentionSelector = false
             },
             onDismiss = { showRetentionSelector = false }
@@ -2999,36 +2788,29 @@ fun getUserPreference(context: android.content.Context, key: String, defaultValu
 }
 
 // Export data functionality
-fun exportSearchData(context: android.content.Context, format: String, timeRange: String, content: List<String>) {
-    val historyItems = loadSearchHistory(context)
-
+fun exportSearchData(context: android.content.Context, searchRepository: SearchRepository, format: String, timeRange: String, content: List<String>) {
     // Filter by time range
-    val filteredItems = when (timeRange) {
-        "Last 7 Days" -> {
-            val weekAgo = System.currentTimeMillis() - (7 * 24 * 60 * 60 * 1000)
-            historyItems.filter { it.timestampMillis >= weekAgo }
-        }
-        "Last 30 Days" -> {
-            val monthAgo = System.currentTimeMillis() - (30 * 24 * 60 * 60 * 1000)
-            historyItems.filter { it.timestampMillis >= monthAgo }
-        }
-        "Last 3 Months" -> {
-            val threeMonthsAgo = System.currentTimeMillis() - (90 * 24 * 60 * 60 * 1000)
-            historyItems.filter { it.timestampMillis >= threeMonthsAgo }
-        }
-        else -> historyItems // All Time
+    val since = when (timeRange) {
+        "Last 7 Days" -> System.currentTimeMillis() - (7 * 24 * 60 * 60 * 1000L)
+        "Last 30 Days" -> System.currentTimeMillis() - (30 * 24 * 60 * 60 * 1000L)
+        "Last 3 Months" -> System.currentTimeMillis() - (90 * 24 * 60 * 60 * 1000L)
+        else -> 0L // All Time
     }
 
-    // Generate export content based on format
-    val exportContent = when (format) {
-        "CSV" -> generateCSVContent(filteredItems, content)
-        "TXT" -> generateTXTContent(filteredItems, content)
-        "JSON" -> generateJSONContent(filteredItems, content)
-        else -> generateCSVContent(filteredItems, content)
-    }
+    CoroutineScope(Dispatchers.Main).launch {
+        val filteredItems = toHistoryItems(searchRepository.getSearchHistorySince(since))
+
+        // Generate export content based on format
+        val exportContent = when (format) {
+            "CSV" -> generateCSVContent(filteredItems, content)
+            "TXT" -> generateTXTContent(filteredItems, content)
+            "JSON" -> generateJSONContent(filteredItems, content)
+            else -> generateCSVContent(filteredItems, content)
+        }
 
-    // Create and share file
-    shareExportedData(context, exportContent, format.lowercase())
+        // Create and share file
+        shareExportedData(context, exportContent, format.lowercase())
+    }
 }
 
 fun generateCSVContent(items: List<HistoryItem>, content: List<String>): String {
@@ -3219,8 +3001,7 @@ fun applyLanguageChange(context: android.content.Context, languageCode: String)
 
 // MARK: - Data Retention Functions
 
-fun applyDataRetentionPolicy(context: android.content.Context, period: String) {
-    val historyItems = loadSearchHistory(context)
+fun applyDataRetentionPolicy(context: android.content.Context, searchRepository: SearchRepository, period: String) {
     val cutoffTime = when (period) {
         "7 Days" -> System.currentTimeMillis() - (7 * 24 * 60 * 60 * 1000L)
         "30 Days" -> System.currentTimeMillis() - (30 * 24 * 60 * 60 * 1000L)
@@ -3231,62 +3012,48 @@ fun applyDataRetentionPolicy(context: android.content.Context, period: String) {
     }
 
     if (cutoffTime > 0) {
-        val filteredItems = historyItems.filter { it.timestampMillis >= cutoffTime }
-        saveSearchHistory(context, filteredItems)
-    }
-}
-
-fun saveSearchHistory(context: android.content.Context, items: List<HistoryItem>) {
-    val sharedPrefs = context.getSharedPreferences("search_history", android.content.Context.MODE_PRIVATE)
-    val editor = sharedPrefs.edit()
-
-    // Clear existing history
-    editor.clear()
-
-    // Save new filtered history
-    items.forEachIndexed { index, item ->
-        editor.putString("query_$index", item.query)
-        editor.putString("platform_$index", item.platform)
-        editor.putString("timestamp_$index", item.timestamp)
-        editor.putLong("timestamp_millis_$index", item.timestampMillis)
-        editor.putInt("icon_$index", item.iconRes)
+        CoroutineScope(Dispatchers.IO).launch {
+            try {
+                searchRepository.deleteSearchHistoryBefore(cutoffTime)
+            } catch (e: Exception) {
+                android.util.Log.e("SearchHistory", "Failed to apply retention policy", e)
+            }
+        }
     }
-
-    editor.putInt("history_count", items.size)
-    editor.apply()
 }
 
 // MARK: - Platform Ordering Functions
 
-fun applyPlatformOrderingChange(context: android.content.Context, isAutomatic: Boolean) {
+fun applyPlatformOrderingChange(context: android.content.Context, isAutomatic: Boolean, searchRepository: SearchRepository) {
     // Save the preference
     saveUserPreferences(context, "platform_ordering_mode", if (isAutomatic) "automatic" else "manual")
 
     if (isAutomatic) {
         // Reorder platforms based on usage frequency
-        reorderPlatformsByUsage(context)
+        reorderPlatformsByUsage(context, searchRepository)
     } else {
         // Reset to default order
         resetPlatformsToDefaultOrder(context)
     }
 }
 
-fun reorderPlatformsByUsage(context: android.content.Context) {
-    val historyItems = loadSearchHistory(context)
-    val platformCounts = historyItems.groupBy { it.platform }.mapValues { it.value.size }
-
-    // Sort platforms by usage count (descending)
-    val sortedPlatforms = platformCounts.toList().sortedByDescending { it.second }
+fun reorderPlatformsByUsage(context: android.content.Context, searchRepository: SearchRepository) {
+    CoroutineScope(Dispatchers.IO).launch {
+        // Counted and sorted by usage (descending) in the database
+        val sortedPlatforms = searchRepository.getPlatformUsageCounts().map { count ->
+            Platform.values().firstOrNull { it.name == count.platform }?.displayName ?: count.platform
+        }
 
-    // Save the new order
-    val sharedPrefs = context.getSharedPreferences("platform_order", android.content.Context.MODE_PRIVATE)
-    val editor = sharedPrefs.edit()
+        // Save the new order
+        val sharedPrefs = context.getSharedPreferences("platform_order", android.content.Context.MODE_PRIVATE)
+        val editor = sharedPrefs.edit()
 
-    sortedPlatforms.forEachIndexed { index, (platform, _) ->
-        editor.putString("platform_$index", platform)
+        sortedPlatforms.forEachIndexed { index, platform ->
+            editor.putString("platform_$index", platform)
+        }
+        editor.putInt("platform_count", sortedPlatforms.size)
+        editor.apply()
     }
-    editor.putInt("platform_count", sortedPlatforms.size)
-    editor.apply()
 }
 
 fun resetPlatformsToDefaultOrder(context: android.content.Context) {
@@ -0,0 +1,80 @@
+package com.skipfeed.android.presentation
+
+/**
+ * Immutable list made of result pages, appended one page at a time.
+ *
+ * Snapshots share an append-only page buffer: appending to the newest snapshot only
+ * records the new page, so growing a long scroll session costs O(page) instead of
+ * copying every post already loaded. Appending to an older snapshot copies the page
+ * references first, so earlier snapshots never observe later pages.
+ */
+class PagedList<T> private constructor(
+    private val buffer: Buffer<T>,
+    val pageCount: Int,
+    override val size: Int
+) : AbstractList<T>(), RandomAccess {
+
+    private class Buffer<T> {
+        val pages = ArrayList<List<T>>()
+        var starts = IntArray(8)
+
+        fun add(page: List<T>, start: Int) {
+            if (pages.size == starts.size) starts = starts.copyOf(starts.size * 2)
+            starts[pages.size] = start
+            pages.add(page)
+        }
+    }
+
+    override fun get(index: Int): T {
+        if (index < 0 || index >= size) throw IndexOutOfBoundsException("Index $index, size $size")
+        val page = pageIndexOf(index)
+        return buffer.pages[page][index - buffer.starts[page]]
+    }
+
+    fun page(pageIndex: Int): List<T> {
+        if (pageIndex < 0 || pageIndex >= pageCount) {
+            throw IndexOutOfBoundsException("Page $pageIndex, pageCount $pageCount")
+        }
+        return buffer.pages[pageIndex]
+    }
+
+    fun plusPage(page: List<T>): PagedList<T> {
+        if (page.isEmpty()) return this
+        val target = if (pageCount == buffer.pages.size) {
+            buffer
+        } else {
+            Buffer<T>().also { copy ->
+                for (i in 0 until pageCount) copy.add(buffer.pages[i], buffer.starts[i])
+            }
+        }
+        target.add(page, size)
+        return PagedList(target, pageCount + 1, size + page.size)
+    }
+
+    /**
+     * Replaces page [pageIndex] in place with a same-sized transform of itself. Meant for
+     * dropping data a page no longer needs on screen; older snapshots sharing the page
+     * see the replacement too, so [transform] must keep whatever the list renders.
+     */
+    fun compactPage(pageIndex: Int, transform: (List<T>) -> List<T>) {
+        val compacted = transform(page(pageIndex))
+        require(compacted.size == buffer.pages[pageIndex].size) { "Compaction must not change page size" }
+        buffer.pages[pageIndex] = compacted
+    }
+
+    private fun pageIndexOf(index: Int): Int {
+        var low = 0
+        var high = pageCount - 1
+        while (low < high) {
+            val mid = (low + high + 1) ushr 1
+            if (buffer.starts[mid] <= index) low = mid else high = mid - 1
+        }
+        return low
+    }
+
+    companion object {
+        fun <T> empty(): PagedList<T> = PagedList(Buffer(), 0, 0)
+
+        fun <T> of(firstPage: List<T>): PagedList<T> = empty<T>().plusPage(firstPage)
+    }
+}
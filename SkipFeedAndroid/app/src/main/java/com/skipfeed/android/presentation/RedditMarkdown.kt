@@ -0,0 +1,299 @@
+package com.skipfeed.android.presentation
+
+import android.util.LruCache
+import androidx.compose.runtime.Immutable
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.text.AnnotatedString
+import androidx.compose.ui.text.SpanStyle
+import androidx.compose.ui.text.buildAnnotatedString
+import androidx.compose.ui.text.font.FontFamily
+import androidx.compose.ui.text.font.FontStyle
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.text.style.TextDecoration
+import androidx.compose.ui.text.withStyle
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.util.Locale
+import javax.inject.Inject
+import javax.inject.Singleton
+
+enum class MarkdownBlockKind {
+    PARAGRAPH,
+    HEADING,
+    QUOTE,
+    LIST_ITEM,
+    CODE,
+    RULE
+}
+
+/**
+ * One independently laid-out piece of a post body. [level] is the heading level for
+ * [MarkdownBlockKind.HEADING] and the nesting depth for quotes and list items.
+ */
+@Immutable
+data class MarkdownBlock(
+    val index: Int,
+    val kind: MarkdownBlockKind,
+    val text: AnnotatedString,
+    val level: Int = 0
+)
+
+/**
+ * Parser for the subset of Reddit markdown that self posts use: headings, quotes, lists,
+ * fenced and indented code, rules, and bold / italic / strikethrough / inline code /
+ * link spans. Links carry a [URL_TAG] string annotation holding the [resolveLink] target;
+ * a link that cannot be opened safely is kept as plain text.
+ *
+ * Paragraphs longer than [MAX_BLOCK_CHARS] are split at a line or word boundary, so no
+ * single block is expensive to measure and a lazy list only lays out what is on screen.
+ */
+object RedditMarkdown {
+
+    const val URL_TAG = "URL"
+
+    private const val MAX_BLOCK_CHARS = 1_200
+
+    private val LINK_COLOR = Color(0xFF007AFF)
+    private val CODE_BACKGROUND = Color(0xFFF2F2F7)
+
+    private val HEADING = Regex("^(#{1,6})\\s*(.*)$")
+    private val LIST_ITEM = Regex("^(\\s*)([*+-]|\\d+[.)])\\s+(.*)$")
+    private val RULE = Regex("^\\s*([-*_])(\\s*\\1){2,}\\s*$")
+    private val SCHEME = Regex("^[A-Za-z][A-Za-z0-9+.-]*:")
+    private val REDDIT_PATH = Regex("^(r|u|user)/", RegexOption.IGNORE_CASE)
+    private val OPENABLE_SCHEMES = setOf("http", "https", "mailto")
+
+    private const val REDDIT_BASE_URL = "https://www.reddit.com"
+
+    fun parse(source: String): List<MarkdownBlock> {
+        val blocks = ArrayList<MarkdownBlock>()
+        val lines = source.replace("\r\n", "\n").split('\n')
+        val paragraph = StringBuilder()
+
+        fun add(kind: MarkdownBlockKind, text: AnnotatedString, level: Int = 0) {
+            blocks.add(MarkdownBlock(blocks.size, kind, text, level))
+        }
+
+        fun flushParagraph() {
+            if (paragraph.isBlank()) {
+                paragraph.setLength(0)
+                return
+            }
+            for (chunk in chunked(paragraph.toString().trim())) {
+                add(MarkdownBlockKind.PARAGRAPH, inline(chunk))
+            }
+            paragraph.setLength(0)
+        }
+
+        var i = 0
+        while (i < lines.size) {
+            val line = lines[i]
+            val trimmed = line.trimStart()
+            when {
+                trimmed.startsWith("```") -> {
+                    flushParagraph()
+                    val code = StringBuilder()
+                    i++
+                    while (i < lines.size && !lines[i].trimStart().startsWith("```")) {
+                        code.appendLine(lines[i])
+                        i++
+                    }
+                    addCode(code, ::add)
+                }
+                line.startsWith("    ") && paragraph.isEmpty() && line.isNotBlank() && !LIST_ITEM.matches(line) -> {
+                    val code = StringBuilder()
+                    while (i < lines.size && (lines[i].startsWith("    ") || lines[i].isBlank())) {
+                        code.appendLine(lines[i].removePrefix("    "))
+                        i++
+                    }
+                    addCode(code, ::add)
+                    continue
+                }
+                line.isBlank() -> flushParagraph()
+                RULE.matches(line) -> {
+                    flushParagraph()
+                    add(MarkdownBlockKind.RULE, AnnotatedString(""))
+                }
+                HEADING.matches(trimmed) -> {
+                    flushParagraph()
+                    val match = HEADING.find(trimmed)!!
+                    add(MarkdownBlockKind.HEADING, inline(match.groupValues[2].trimEnd('#', ' ')), match.groupValues[1].length)
+                }
+                trimmed.startsWith(">") -> {
+                    flushParagraph()
+                    val depth = trimmed.takeWhile { it == '>' || it == ' ' }.count { it == '>' }
+                    val quote = StringBuilder(trimmed.trimStart('>', ' '))
+                    // Following lines at the same depth belong to this quote paragraph.
+                    while (i + 1 < lines.size && lines[i + 1].trimStart().startsWith(">") &&
+                        lines[i + 1].trimStart().trimStart('>', ' ').isNotBlank()
+                    ) {
+                        i++
+                        quote.append(' ').append(lines[i].trimStart().trimStart('>', ' '))
+                    }
+                    for (chunk in chunked(quote.toString())) {
+                        add(MarkdownBlockKind.QUOTE, inline(chunk), depth)
+                    }
+                }
+                LIST_ITEM.matches(line) -> {
+                    flushParagraph()
+                    val match = LIST_ITEM.find(line)!!
+                    val marker = match.groupValues[2].let { if (it[0].isDigit()) it else "•" }
+                    val level = match.groupValues[1].length / 2
+                    add(MarkdownBlockKind.LIST_ITEM, inline("$marker ${match.groupValues[3]}"), level)
+                }
+                else -> {
+                    if (paragraph.isNotEmpty()) paragraph.append(if (line.endsWith("  ")) '\n' else ' ')
+                    paragraph.append(trimmed.trimEnd())
+                }
+            }
+            i++
+        }
+        flushParagraph()
+        return blocks
+    }
+
+    private fun addCode(code: StringBuilder, add: (MarkdownBlockKind, AnnotatedString, Int) -> Unit) {
+        val text = code.toString().trimEnd('\n')
+        if (text.isEmpty()) return
+        for (chunk in chunked(text)) {
+            add(MarkdownBlockKind.CODE, AnnotatedString(chunk), 0)
+        }
+    }
+
+    // Splits at the last newline, else the last space, before the limit.
+    private fun chunked(text: String): List<String> {
+        if (text.length <= MAX_BLOCK_CHARS) return listOf(text)
+        val chunks = ArrayList<String>()
+        var start = 0
+        while (text.length - start > MAX_BLOCK_CHARS) {
+            val limit = start + MAX_BLOCK_CHARS
+            var end = text.lastIndexOf('\n', limit)
+            if (end <= start) end = text.lastIndexOf(' ', limit)
+            if (end <= start) end = limit
+            chunks.add(text.substring(start, end))
+            start = end
+            while (start < text.length && text[start].isWhitespace()) start++
+        }
+        if (start < text.length) chunks.add(text.substring(start))
+        return chunks
+    }
+
+    /**
+     * Link target as something an ACTION_VIEW intent can open. Reddit markdown links are
+     * often relative (`/r/foo`, `r/foo`, `/u/bar`), and those resolve against reddit.com;
+     * a bare host like `example.com/page` gets https. Null for any scheme other than
+     * http, https and mailto: `javascript:`, `intent:`, `content:` and `file:` links come
+     * from post authors and must not be handed to the system.
+     */
+    fun resolveLink(url: String): String? {
+        val target = url.trim()
+        return when {
+            SCHEME.containsMatchIn(target) ->
+                target.takeIf { target.substringBefore(':').lowercase(Locale.ROOT) in OPENABLE_SCHEMES }
+            target.startsWith("//") -> "https:$target"
+            target.startsWith("/") -> REDDIT_BASE_URL + target
+            REDDIT_PATH.containsMatchIn(target) -> "$REDDIT_BASE_URL/$target"
+            '.' in target.substringBefore('/') -> "https://$target"
+            else -> "$REDDIT_BASE_URL/$target"
+        }
+    }
+
+    /** Inline spans; an unmatched marker is kept as literal text. */
+    fun inline(text: String): AnnotatedString = buildAnnotatedString {
+        var i = 0
+        while (i < text.length) {
+            val c = text[i]
+            when {
+                c == '\\' && i + 1 < text.length -> {
+                    append(text[i + 1])
+                    i += 2
+                    continue
+                }
+                text.startsWith("**", i) || text.startsWith("__", i) -> {
+                    val end = text.indexOf(text.substring(i, i + 2), i + 2)
+                    if (end > i + 2) {
+                        withStyle(SpanStyle(fontWeight = FontWeight.Bold)) { append(inline(text.substring(i + 2, end))) }
+                        i = end + 2
+                        continue
+                    }
+                }
+                text.startsWith("~~", i) -> {
+                    val end = text.indexOf("~~", i + 2)
+                    if (end > i + 2) {
+                        withStyle(SpanStyle(textDecoration = TextDecoration.LineThrough)) {
+                            append(inline(text.substring(i + 2, end)))
+                        }
+                        i = end + 2
+                        continue
+                    }
+                }
+                // An underscore inside a word (snake_case) is not emphasis.
+                (c == '*' || (c == '_' && (i == 0 || !text[i - 1].isLetterOrDigit()))) &&
+                    i + 1 < text.length && !text[i + 1].isWhitespace() -> {
+                    val end = text.indexOf(c, i + 1)
+                    if (end > i + 1 && !text[end - 1].isWhitespace()) {
+                        withStyle(SpanStyle(fontStyle = FontStyle.Italic)) { append(inline(text.substring(i + 1, end))) }
+                        i = end + 1
+                        continue
+                    }
+                }
+                c == '`' -> {
+                    val end = text.indexOf('`', i + 1)
+                    if (end > i + 1) {
+                        withStyle(SpanStyle(fontFamily = FontFamily.Monospace, background = CODE_BACKGROUND)) {
+                            append(text.substring(i + 1, end))
+                        }
+                        i = end + 1
+                        continue
+                    }
+                }
+                c == '[' -> {
+                    val close = text.indexOf("](", i + 1)
+                    val end = if (close > i) text.indexOf(')', close + 2) else -1
+                    if (end > close && close > i) {
+                        val link = resolveLink(text.substring(close + 2, end))
+                        if (link == null) {
+                            append(inline(text.substring(i + 1, close)))
+                        } else {
+                            pushStringAnnotation(URL_TAG, link)
+                            withStyle(SpanStyle(color = LINK_COLOR, textDecoration = TextDecoration.Underline)) {
+                                append(inline(text.substring(i + 1, close)))
+                            }
+                            pop()
+                        }
+                        i = end + 1
+                        continue
+                    }
+                }
+            }
+            append(c)
+            i++
+        }
+    }
+}
+
+/**
+ * Parsed post bodies by post id, so reopening a post skips parsing. An entry is only
+ * reused for the same text: a card-length body and its full version share an id.
+ */
+@Singleton
+class RedditMarkdownCache @Inject constructor() {
+
+    private class Entry(val sourceLength: Int, val sourceHash: Int, val blocks: List<MarkdownBlock>)
+
+    private val entries = LruCache<String, Entry>(MAX_POSTS)
+
+    suspend fun blocksFor(postId: String, source: String): List<MarkdownBlock> {
+        val cached = entries.get(postId)
+        if (cached != null && cached.sourceLength == source.length && cached.sourceHash == source.hashCode()) {
+            return cached.blocks
+        }
+        val blocks = withContext(Dispatchers.Default) { RedditMarkdown.parse(source) }
+        entries.put(postId, Entry(source.length, source.hashCode(), blocks))
+        return blocks
+    }
+
+    companion object {
+        private const val MAX_POSTS = 32
+    }
+}
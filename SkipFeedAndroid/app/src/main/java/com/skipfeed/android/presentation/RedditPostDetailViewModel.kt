@@ -0,0 +1,292 @@
+package com.skipfeed.android.presentation
+
+import androidx.compose.runtime.Immutable
+import androidx.lifecycle.ViewModel
+import androidx.lifecycle.viewModelScope
+import com.skipfeed.android.data.model.RedditCommentItem
+import com.skipfeed.android.data.model.RedditPost
+import com.skipfeed.android.data.repository.RedditCommentRepository
+import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+
+/** One visible line of the comment list: a comment, or a "load more replies" row. */
+@Immutable
+data class RedditCommentRow(
+    val id: String,
+    val depth: Int,
+    val isMore: Boolean,
+    val authorLabel: String,
+    val body: String,
+    val scoreText: String,
+    val relativeTime: String,
+    // Replies hidden under a collapsed comment, or the replies a "more" row stands for.
+    val replyCount: Int,
+    val isCollapsed: Boolean = false,
+    val isExpanding: Boolean = false,
+    // The last attempt to load this "more" row failed; tapping it retries.
+    val expandFailed: Boolean = false
+)
+
+data class RedditPostDetailUiState(
+    val postId: String? = null,
+    // The post body as markdown blocks; empty until parsed, or when there is no body.
+    val bodyBlocks: List<MarkdownBlock> = emptyList(),
+    val rows: List<RedditCommentRow> = emptyList(),
+    val isLoading: Boolean = false,
+    val error: String? = null
+)
+
+/**
+ * Body and comments of the post open in [com.skipfeed.android.presentation.components.RedditPostDetailDialog].
+ *
+ * The body is parsed into [MarkdownBlock]s off the main thread through [RedditMarkdownCache].
+ * The thread is kept as the flat, depth-annotated list the decoder produces. Collapsing a
+ * comment hides the [RedditCommentItem.Comment.descendantCount] rows after it, so building
+ * the visible rows is one pass that skips whole subtrees. Comments at [AUTO_COLLAPSE_DEPTH]
+ * start collapsed, and "more" rows are only fetched when tapped.
+ */
+@HiltViewModel
+class RedditPostDetailViewModel @Inject constructor(
+    private val commentRepository: RedditCommentRepository,
+    private val markdownCache: RedditMarkdownCache
+) : ViewModel() {
+
+    private val _uiState = MutableStateFlow(RedditPostDetailUiState())
+    val uiState: StateFlow<RedditPostDetailUiState> = _uiState.asStateFlow()
+
+    private var post: RedditPost? = null
+    private var items: List<RedditCommentItem> = emptyList()
+    private val collapsed = HashSet<String>()
+    private val expanding = HashSet<String>()
+    private val expandFailed = HashSet<String>()
+    // Formatted rows by id; flags are applied on top, so toggling never re-formats. Replaced,
+    // not edited, when rows change, so a publish still running on an older snapshot can only
+    // write into a map nobody reads any more.
+    private var rowCache = ConcurrentHashMap<String, RedditCommentRow>()
+    private var loadJob: Job? = null
+    private var bodyJob: Job? = null
+    private var publishJob: Job? = null
+    // Bumped by every publish; only the latest one may update the state.
+    private var publishGeneration = 0L
+
+    fun load(post: RedditPost) {
+        if (this.post?.id == post.id) return
+        reset()
+        this.post = post
+        _uiState.value = RedditPostDetailUiState(postId = post.id, isLoading = true)
+        loadJob = viewModelScope.launch { fetchThread(post) }
+    }
+
+    /**
+     * Parses [post]'s body for display. Called again when the full body of a post that was
+     * compacted for its card arrives, which the cache treats as different text.
+     */
+    fun renderBody(post: RedditPost) {
+        bodyJob?.cancel()
+        val body = post.selftext
+        if (body.isNullOrEmpty()) {
+            _uiState.update { it.copy(bodyBlocks = emptyList()) }
+            return
+        }
+        bodyJob = viewModelScope.launch {
+            val blocks = markdownCache.blocksFor(post.id, body)
+            _uiState.update { if (it.postId == post.id) it.copy(bodyBlocks = blocks) else it }
+        }
+    }
+
+    fun retry() {
+        val post = post ?: return
+        loadJob?.cancel()
+        _uiState.update { it.copy(isLoading = true, error = null) }
+        loadJob = viewModelScope.launch { fetchThread(post) }
+    }
+
+    private suspend fun fetchThread(post: RedditPost) {
+        commentRepository.loadThread(post).fold(
+            onSuccess = { thread ->
+                items = thread
+                autoCollapse(thread)
+                publish()
+            },
+            onFailure = { error ->
+                _uiState.update {
+                    it.copy(isLoading = false, error = error.message ?: "Couldn't load comments")
+                }
+            }
+        )
+    }
+
+    fun toggleCollapsed(id: String) {
+        if (!collapsed.remove(id)) collapsed.add(id)
+        publish()
+    }
+
+    fun expandMore(id: String) {
+        val post = post ?: return
+        val more = items.firstOrNull { it.id == id } as? RedditCommentItem.More ?: return
+        if (!expanding.add(id)) return
+        expandFailed.remove(id)
+        publish()
+
+        viewModelScope.launch {
+            val result = commentRepository.expandMore(post, more)
+            // The dialog may have moved on to another post meanwhile.
+            if (this@RedditPostDetailViewModel.post?.id != post.id) return@launch
+            expanding.remove(id)
+            result.fold(
+                onSuccess = { replacement ->
+                    items = splice(items, more, replacement)
+                    autoCollapse(replacement)
+                },
+                onFailure = { expandFailed.add(id) }
+            )
+            publish()
+        }
+    }
+
+    fun clear() {
+        reset()
+        _uiState.value = RedditPostDetailUiState()
+    }
+
+    private fun reset() {
+        loadJob?.cancel()
+        bodyJob?.cancel()
+        publishJob?.cancel()
+        post = null
+        items = emptyList()
+        collapsed.clear()
+        expanding.clear()
+        expandFailed.clear()
+        rowCache = ConcurrentHashMap()
+    }
+
+    private fun autoCollapse(added: List<RedditCommentItem>) {
+        for (item in added) {
+            if (item is RedditCommentItem.Comment && item.depth == AUTO_COLLAPSE_DEPTH && item.descendantCount > 0) {
+                collapsed.add(item.id)
+            }
+        }
+    }
+
+    /** Rebuilds the visible rows off the main thread from a snapshot of the current thread. */
+    private fun publish() {
+        val snapshot = items
+        val collapsedIds = collapsed.toSet()
+        val expandingIds = expanding.toSet()
+        val failedIds = expandFailed.toSet()
+        val cache = rowCache
+        val postId = post?.id
+        val generation = ++publishGeneration
+        publishJob?.cancel()
+        publishJob = viewModelScope.launch {
+            val rows = withContext(Dispatchers.Default) {
+                visibleRows(snapshot, collapsedIds, expandingIds, failedIds, cache)
+            }
+            // A newer publish has started since; its rows supersede these.
+            if (generation != publishGeneration) return@launch
+            _uiState.update {
+                if (it.postId != postId) it else it.copy(rows = rows, isLoading = false, error = null)
+            }
+        }
+    }
+
+    private fun visibleRows(
+        thread: List<RedditCommentItem>,
+        collapsedIds: Set<String>,
+        expandingIds: Set<String>,
+        failedIds: Set<String>,
+        cache: ConcurrentHashMap<String, RedditCommentRow>
+    ): List<RedditCommentRow> {
+        val nowMillis = System.currentTimeMillis()
+        val rows = ArrayList<RedditCommentRow>()
+        var i = 0
+        while (i < thread.size) {
+            val item = thread[i]
+            val isCollapsed = item is RedditCommentItem.Comment && item.id in collapsedIds
+            val row = cache.getOrPut(item.id) { format(item, nowMillis) }
+            val isExpanding = item.id in expandingIds
+            val failed = item.id in failedIds
+            rows.add(
+                if (isCollapsed || isExpanding || failed) {
+                    row.copy(isCollapsed = isCollapsed, isExpanding = isExpanding, expandFailed = failed)
+                } else {
+                    row
+                }
+            )
+            i += if (isCollapsed) (item as RedditCommentItem.Comment).descendantCount + 1 else 1
+        }
+        return rows
+    }
+
+    private fun format(item: RedditCommentItem, nowMillis: Long): RedditCommentRow = when (item) {
+        is RedditCommentItem.Comment -> RedditCommentRow(
+            id = item.id,
+            depth = item.depth,
+            isMore = false,
+            authorLabel = "u/${item.author}",
+            body = item.body,
+            scoreText = RedditPostUiMapper.formatCount(item.score),
+            relativeTime = RedditPostUiMapper.formatRelativeTime((item.created * 1000).toLong(), nowMillis),
+            replyCount = item.descendantCount
+        )
+        is RedditCommentItem.More -> RedditCommentRow(
+            id = item.id,
+            depth = item.depth,
+            isMore = true,
+            authorLabel = "",
+            body = "",
+            scoreText = "",
+            relativeTime = "",
+            replyCount = item.count
+        )
+    }
+
+    /**
+     * Replaces [more] with [replacement] and grows every ancestor's subtree to match, so
+     * collapsing an ancestor still hides exactly its own replies.
+     */
+    private fun splice(
+        thread: List<RedditCommentItem>,
+        more: RedditCommentItem.More,
+        replacement: List<RedditCommentItem>
+    ): List<RedditCommentItem> {
+        val index = thread.indexOfFirst { it.id == more.id }
+        if (index < 0) return thread
+        val delta = replacement.size - 1
+        val result = ArrayList<RedditCommentItem>(thread.size + delta)
+        result.addAll(thread.subList(0, index))
+        result.addAll(replacement)
+        result.addAll(thread.subList(index + 1, thread.size))
+
+        // Copied so a publish still running on the old thread can't put a stale ancestor back.
+        val cache = ConcurrentHashMap(rowCache)
+        cache.remove(more.id)
+        var depth = more.depth
+        var j = index - 1
+        while (j >= 0 && depth > 0) {
+            val item = result[j]
+            if (item.depth < depth && item is RedditCommentItem.Comment) {
+                result[j] = item.copy(descendantCount = item.descendantCount + delta)
+                cache.remove(item.id)
+                depth = item.depth
+            }
+            j--
+        }
+        rowCache = cache
+        return result
+    }
+
+    companion object {
+        const val AUTO_COLLAPSE_DEPTH = 3
+    }
+}
@@ -0,0 +1,115 @@
+package com.skipfeed.android.presentation
+
+import androidx.compose.runtime.Immutable
+import com.skipfeed.android.data.model.RedditPost
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.text.SimpleDateFormat
+import java.util.Date
+import java.util.Locale
+
+enum class RedditMediaKind {
+    TEXT,
+    IMAGE,
+    VIDEO,
+    LINK
+}
+
+/**
+ * Pixel sizes images are shown at, so each post can pick the smallest Reddit rendition
+ * that still fills its slot.
+ */
+data class RedditImageTargets(
+    val cardWidthPx: Int,
+    val cardHeightPx: Int,
+    val detailWidthPx: Int
+) {
+    companion object {
+        val DEFAULT = RedditImageTargets(cardWidthPx = 1_000, cardHeightPx = 360, detailWidthPx = 1_080)
+    }
+}
+
+/**
+ * Everything a post card or the detail dialog displays, resolved once when the page is
+ * mapped so composition only reads fields. [post] is kept for actions (share, open,
+ * hydrating the full body).
+ */
+@Immutable
+data class RedditPostUiModel(
+    val id: String,
+    val title: String,
+    val subredditLabel: String,
+    val authorLabel: String,
+    val bodyPreview: String?,
+    // Rendition sized for the 120dp card slot; the detail view starts from it.
+    val imageUrl: String?,
+    val detailImageUrl: String?,
+    val scoreText: String,
+    val commentCountText: String,
+    val relativeTime: String,
+    val mediaKind: RedditMediaKind,
+    val post: RedditPost
+)
+
+object RedditPostUiMapper {
+
+    suspend fun mapAll(
+        posts: List<RedditPost>,
+        targets: RedditImageTargets = RedditImageTargets.DEFAULT
+    ): List<RedditPostUiModel> = withContext(Dispatchers.Default) {
+        val nowMillis = System.currentTimeMillis()
+        posts.map { map(it, targets, nowMillis) }
+    }
+
+    fun map(
+        post: RedditPost,
+        targets: RedditImageTargets = RedditImageTargets.DEFAULT,
+        nowMillis: Long = System.currentTimeMillis()
+    ): RedditPostUiModel {
+        val image = post.preview?.images?.firstOrNull()
+        // Rendition URLs were unescaped once by the listing decoder.
+        val imageUrl = image?.renditionCovering(targets.cardWidthPx, targets.cardHeightPx)?.url
+            ?: post.thumbnailUrl
+        val detailImageUrl = image?.renditionCovering(targets.detailWidthPx, 0)?.url
+            ?: imageUrl
+        return RedditPostUiModel(
+            id = post.id,
+            title = post.title,
+            subredditLabel = "r/${post.subreddit}",
+            authorLabel = "u/${post.author}",
+            bodyPreview = post.selftext?.takeIf { it.isNotEmpty() }?.take(RedditPost.CARD_BODY_CHARS),
+            imageUrl = imageUrl,
+            detailImageUrl = detailImageUrl,
+            scoreText = formatCount(post.score),
+            commentCountText = formatCount(post.numComments),
+            relativeTime = formatRelativeTime(post.createdDate, nowMillis),
+            mediaKind = when {
+                post.isVideo -> RedditMediaKind.VIDEO
+                imageUrl != null -> RedditMediaKind.IMAGE
+                !post.selftext.isNullOrEmpty() || post.url.startsWith(post.redditUrl) -> RedditMediaKind.TEXT
+                else -> RedditMediaKind.LINK
+            },
+            post = post
+        )
+    }
+
+    fun formatCount(count: Int): String {
+        val abs = kotlin.math.abs(count)
+        return when {
+            abs < 1_000 -> count.toString()
+            abs < 1_000_000 -> String.format(Locale.US, "%.1fk", count / 1_000f).replace(".0k", "k")
+            else -> String.format(Locale.US, "%.1fM", count / 1_000_000f).replace(".0M", "M")
+        }
+    }
+
+    fun formatRelativeTime(postTimeMillis: Long, nowMillis: Long): String {
+        val diff = nowMillis - postTimeMillis
+        return when {
+            diff < 60 * 1000 -> "now"
+            diff < 60 * 60 * 1000 -> "${diff / (60 * 1000)}m"
+            diff < 24 * 60 * 60 * 1000 -> "${diff / (60 * 60 * 1000)}h"
+            diff < 7 * 24 * 60 * 60 * 1000 -> "${diff / (24 * 60 * 60 * 1000)}d"
+            else -> SimpleDateFormat("MMM d", Locale.getDefault()).format(Date(postTimeMillis))
+        }
+    }
+}
@@ -2,10 +2,15 @@ package com.skipfeed.android.presentation
 
 import androidx.compose.foundation.background
 import androidx.compose.foundation.clickable
+import androidx.compose.foundation.horizontalScroll
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.lazy.items
+import androidx.compose.foundation.lazy.rememberLazyListState
+import androidx.compose.foundation.rememberScrollState
 import androidx.compose.foundation.shape.RoundedCornerShape
+import androidx.compose.foundation.text.KeyboardActions
+import androidx.compose.foundation.text.KeyboardOptions
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.*
 import androidx.compose.material3.*
@@ -15,18 +20,23 @@ import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.layout.ContentScale
+import androidx.compose.ui.platform.LocalConfiguration
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.LocalDensity
 import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.text.input.ImeAction
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
-import androidx.lifecycle.viewmodel.compose.viewModel
+import androidx.hilt.navigation.compose.hiltViewModel
 import coil.compose.AsyncImage
-import com.skipfeed.android.data.*
+import coil.imageLoader
+import com.skipfeed.android.data.model.RedditSort
+import com.skipfeed.android.data.model.RedditTimeFilter
+import com.skipfeed.android.data.model.ResultSource
+import com.skipfeed.android.presentation.components.RedditImages
 import com.skipfeed.android.presentation.components.RedditPostDetailDialog
-import kotlinx.coroutines.launch
-import java.text.SimpleDateFormat
-import java.util.*
+import kotlinx.coroutines.flow.distinctUntilChanged
 
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
@@ -34,14 +44,35 @@ fun RedditSearchScreen(
     query: String,
     onDismiss: () -> Unit
 ) {
-    val viewModel: RedditSearchViewModel = viewModel()
+    val viewModel: RedditSearchViewModel = hiltViewModel()
     val uiState by viewModel.uiState.collectAsState()
     val context = LocalContext.current
-    var selectedPost by remember { mutableStateOf<RedditPost?>(null) }
+    val configuration = LocalConfiguration.current
+    val density = LocalDensity.current
+    val imageTargets = remember(configuration.screenWidthDp, density) {
+        with(density) {
+            // List and card padding take 16dp on each side.
+            val slotWidthPx = (configuration.screenWidthDp.dp - 64.dp).roundToPx()
+            RedditImageTargets(
+                cardWidthPx = slotWidthPx,
+                cardHeightPx = CARD_IMAGE_HEIGHT.roundToPx(),
+                detailWidthPx = slotWidthPx
+            )
+        }
+    }
+    
+    LaunchedEffect(imageTargets) {
+        viewModel.setImageTargets(imageTargets)
+    }
     
     LaunchedEffect(query) {
         viewModel.searchPosts(query)
     }
+
+    // Don't keep paging in the background once the screen is gone.
+    DisposableEffect(viewModel) {
+        onDispose { viewModel.cancelLoadMore() }
+    }
     
     Scaffold(
         topBar = {
@@ -53,6 +84,9 @@ fun RedditSearchScreen(
                     }
                 },
                 actions = {
+                    IconButton(onClick = { viewModel.refreshFromServer(query) }) {
+                        Icon(Icons.Default.Refresh, contentDescription = "Refresh")
+                    }
                     IconButton(onClick = { viewModel.toggleFilters() }) {
                         Icon(Icons.Default.FilterList, contentDescription = "Filters")
                     }
@@ -74,34 +108,73 @@ fun RedditSearchScreen(
                 FilterBar(
                     selectedSort = uiState.selectedSort,
                     selectedTimeFilter = uiState.selectedTimeFilter,
-                    onSortChange = { viewModel.updateSort(it, query) },
-                    onTimeFilterChange = { viewModel.updateTimeFilter(it, query) }
+                    onSortChange = { viewModel.updateSort(it) },
+                    onTimeFilterChange = { viewModel.updateTimeFilter(it, query) },
+                    subreddits = uiState.subreddits,
+                    onSubredditsChange = { viewModel.updateSubreddits(it, query) },
+                    isResortedLocally = uiState.selectedSort != uiState.serverSort && uiState.posts.isNotEmpty(),
+                    onRefresh = { viewModel.refreshFromServer(query) }
+                )
+            }
+            
+            // Facets over the loaded posts; filtering them never hits the network
+            if (uiState.posts.isNotEmpty()) {
+                FacetChips(
+                    filter = uiState.postFilter,
+                    subredditFacets = uiState.subredditFacets,
+                    mediaFacets = uiState.mediaFacets,
+                    onFilterChange = { viewModel.updatePostFilter(it) }
+                )
+            }
+            
+            // Progress of a multi-subreddit search while the slower ones are still answering
+            if (uiState.subreddits.isNotEmpty() && uiState.posts.isNotEmpty()) {
+                SubredditProgress(
+                    answered = uiState.subredditsAnswered,
+                    total = uiState.subreddits.size
                 )
             }
             
+            // Freshness of the listing currently on screen
+            if (uiState.posts.isNotEmpty() && uiState.resultSource != ResultSource.NETWORK) {
+                FreshnessBanner(
+                    source = uiState.resultSource,
+                    ageMillis = uiState.resultAgeMillis,
+                    isRevalidating = uiState.isRevalidating,
+                    revalidationFailed = uiState.revalidationFailed
+                )
+            }
+
             // Content
             when {
                 uiState.isLoading && uiState.posts.isEmpty() -> {
                     LoadingView()
                 }
-                uiState.error != null -> {
+                // Once posts are showing, a failed next page is reported in the list footer.
+                uiState.error != null && uiState.posts.isEmpty() -> {
                     ErrorView(
                         error = uiState.error!!,
-                        onRetry = { viewModel.searchPosts(query) }
+                        onRetry = { viewModel.retry() }
                     )
                 }
                 uiState.posts.isEmpty() -> {
                     EmptyView(query = query)
                 }
+                uiState.visiblePosts.isEmpty() -> {
+                    NoMatchesView(onClearFilters = { viewModel.updatePostFilter(PostFilter.NONE) })
+                }
                 else -> {
                     PostsList(
-                        posts = uiState.posts,
+                        posts = uiState.visiblePosts,
                         isLoadingMore = uiState.isLoadingMore,
                         hasMorePosts = uiState.hasMorePosts,
-                        onLoadMore = { viewModel.loadMorePosts() },
+                        loadMoreError = uiState.loadMoreError,
+                        onLoadMore = { isPrefetch -> viewModel.loadMorePosts(isPrefetch) },
+                        onRetryLoadMore = { viewModel.retryLoadMore() },
+                        imageTargets = imageTargets,
                         onPostClick = { post ->
                             // Show post detail dialog
-                            selectedPost = post
+                            viewModel.openPost(post)
                         }
                     )
                 }
@@ -110,10 +183,10 @@ fun RedditSearchScreen(
     }
 
     // Show post detail dialog
-    selectedPost?.let { post ->
+    uiState.selectedPost?.let { post ->
         RedditPostDetailDialog(
-            post = post,
-            onDismiss = { selectedPost = null }
+            item = post,
+            onDismiss = { viewModel.closePost() }
         )
     }
 }
@@ -123,80 +196,248 @@ fun FilterBar(
     selectedSort: RedditSort,
     selectedTimeFilter: RedditTimeFilter,
     onSortChange: (RedditSort) -> Unit,
-    onTimeFilterChange: (RedditTimeFilter) -> Unit
+    onTimeFilterChange: (RedditTimeFilter) -> Unit,
+    subreddits: List<String>,
+    onSubredditsChange: (String) -> Unit,
+    isResortedLocally: Boolean,
+    onRefresh: () -> Unit
 ) {
-    Row(
-        modifier = Modifier
-            .fillMaxWidth()
-            .padding(16.dp),
-        horizontalArrangement = Arrangement.spacedBy(12.dp)
-    ) {
-        // Sort dropdown
-        var sortExpanded by remember { mutableStateOf(false) }
-        
-        Box {
-            Button(
-                onClick = { sortExpanded = true },
-                colors = ButtonDefaults.buttonColors(
-                    containerColor = Color.White,
-                    contentColor = Color(0xFF1C1C1E)
-                ),
-                shape = RoundedCornerShape(8.dp)
-            ) {
-                Text(selectedSort.displayName)
-                Icon(Icons.Default.ArrowDropDown, contentDescription = null)
+    Column(modifier = Modifier.padding(16.dp)) {
+        Row(
+            modifier = Modifier.fillMaxWidth(),
+            horizontalArrangement = Arrangement.spacedBy(12.dp)
+        ) {
+            // Sort dropdown
+            var sortExpanded by remember { mutableStateOf(false) }
+            
+            Box {
+                Button(
+                    onClick = { sortExpanded = true },
+                    colors = ButtonDefaults.buttonColors(
+                        containerColor = Color.White,
+                        contentColor = Color(0xFF1C1C1E)
+                    ),
+                    shape = RoundedCornerShape(8.dp)
+                ) {
+                    Text(selectedSort.displayName)
+                    Icon(Icons.Default.ArrowDropDown, contentDescription = null)
+                }
+                
+                DropdownMenu(
+                    expanded = sortExpanded,
+                    onDismissRequest = { sortExpanded = false }
+                ) {
+                    RedditSort.values().forEach { sort ->
+                        DropdownMenuItem(
+                            text = { Text(sort.displayName) },
+                            onClick = {
+                                onSortChange(sort)
+                                sortExpanded = false
+                            }
+                        )
+                    }
+                }
             }
             
-            DropdownMenu(
-                expanded = sortExpanded,
-                onDismissRequest = { sortExpanded = false }
-            ) {
-                RedditSort.values().forEach { sort ->
-                    DropdownMenuItem(
-                        text = { Text(sort.displayName) },
-                        onClick = {
-                            onSortChange(sort)
-                            sortExpanded = false
-                        }
-                    )
+            // Time filter dropdown
+            var timeExpanded by remember { mutableStateOf(false) }
+            
+            Box {
+                Button(
+                    onClick = { timeExpanded = true },
+                    colors = ButtonDefaults.buttonColors(
+                        containerColor = Color.White,
+                        contentColor = Color(0xFF1C1C1E)
+                    ),
+                    shape = RoundedCornerShape(8.dp)
+                ) {
+                    Text(selectedTimeFilter.displayName)
+                    Icon(Icons.Default.ArrowDropDown, contentDescription = null)
+                }
+                
+                DropdownMenu(
+                    expanded = timeExpanded,
+                    onDismissRequest = { timeExpanded = false }
+                ) {
+                    RedditTimeFilter.values().forEach { filter ->
+                        DropdownMenuItem(
+                            text = { Text(filter.displayName) },
+                            onClick = {
+                                onTimeFilterChange(filter)
+                                timeExpanded = false
+                            }
+                        )
+                    }
+                }
+            }
+            
+            // Sorting is applied to what's loaded; offer to fetch Reddit's own ranking
+            if (isResortedLocally) {
+                TextButton(onClick = onRefresh) {
+                    Text("Fetch from Reddit", color = Color(0xFF007AFF))
                 }
             }
         }
         
-        // Time filter dropdown
-        var timeExpanded by remember { mutableStateOf(false) }
+        // Subreddits to search in parallel instead of all of Reddit
+        var subredditText by remember(subreddits) { mutableStateOf(subreddits.joinToString(", ")) }
         
-        Box {
-            Button(
-                onClick = { timeExpanded = true },
-                colors = ButtonDefaults.buttonColors(
-                    containerColor = Color.White,
-                    contentColor = Color(0xFF1C1C1E)
-                ),
-                shape = RoundedCornerShape(8.dp)
-            ) {
-                Text(selectedTimeFilter.displayName)
-                Icon(Icons.Default.ArrowDropDown, contentDescription = null)
-            }
-            
-            DropdownMenu(
-                expanded = timeExpanded,
-                onDismissRequest = { timeExpanded = false }
-            ) {
-                RedditTimeFilter.values().forEach { filter ->
-                    DropdownMenuItem(
-                        text = { Text(filter.displayName) },
-                        onClick = {
-                            onTimeFilterChange(filter)
-                            timeExpanded = false
-                        }
-                    )
+        OutlinedTextField(
+            value = subredditText,
+            onValueChange = { subredditText = it },
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(top = 12.dp),
+            placeholder = { Text("Subreddits, e.g. android, kotlin") },
+            leadingIcon = { Text("r/", color = Color(0xFF8E8E93)) },
+            trailingIcon = {
+                IconButton(onClick = { onSubredditsChange(subredditText) }) {
+                    Icon(Icons.Default.Search, contentDescription = "Search subreddits")
                 }
+            },
+            singleLine = true,
+            keyboardOptions = KeyboardOptions(imeAction = ImeAction.Search),
+            keyboardActions = KeyboardActions(onSearch = { onSubredditsChange(subredditText) }),
+            shape = RoundedCornerShape(8.dp)
+        )
+    }
+}
+
+@OptIn(ExperimentalMaterial3Api::class)
+@Composable
+fun FacetChips(
+    filter: PostFilter,
+    subredditFacets: List<FacetCount<String>>,
+    mediaFacets: List<FacetCount<RedditMediaKind>>,
+    onFilterChange: (PostFilter) -> Unit
+) {
+    Row(
+        modifier = Modifier
+            .fillMaxWidth()
+            .horizontalScroll(rememberScrollState())
+            .padding(horizontal = 16.dp, vertical = 4.dp),
+        horizontalArrangement = Arrangement.spacedBy(8.dp)
+    ) {
+        mediaFacets.forEach { facet ->
+            val selected = filter.mediaKind == facet.value
+            FilterChip(
+                selected = selected,
+                onClick = { onFilterChange(filter.copy(mediaKind = if (selected) null else facet.value)) },
+                label = { Text("${mediaKindLabel(facet.value)} ${facet.count}") }
+            )
+        }
+        // Subreddit counts only help once results span more than one
+        if (subredditFacets.size > 1 || filter.subreddit != null) {
+            subredditFacets.forEach { facet ->
+                val selected = filter.subreddit == facet.value
+                FilterChip(
+                    selected = selected,
+                    onClick = { onFilterChange(filter.copy(subreddit = if (selected) null else facet.value)) },
+                    label = { Text("${facet.value} ${facet.count}") }
+                )
             }
         }
     }
 }
 
+private fun mediaKindLabel(kind: RedditMediaKind): String = when (kind) {
+    RedditMediaKind.TEXT -> "Text"
+    RedditMediaKind.IMAGE -> "Images"
+    RedditMediaKind.VIDEO -> "Videos"
+    RedditMediaKind.LINK -> "Links"
+}
+
+@Composable
+fun NoMatchesView(onClearFilters: () -> Unit) {
+    Box(
+        modifier = Modifier.fillMaxSize(),
+        contentAlignment = Alignment.Center
+    ) {
+        Column(
+            horizontalAlignment = Alignment.CenterHorizontally
+        ) {
+            Text(
+                text = "No loaded posts match these filters",
+                color = Color(0xFF8E8E93)
+            )
+            Spacer(modifier = Modifier.height(8.dp))
+            TextButton(onClick = onClearFilters) {
+                Text("Clear filters", color = Color(0xFF007AFF))
+            }
+        }
+    }
+}
+
+@Composable
+fun SubredditProgress(answered: Int, total: Int) {
+    Row(
+        modifier = Modifier
+            .fillMaxWidth()
+            .padding(horizontal = 16.dp, vertical = 4.dp),
+        verticalAlignment = Alignment.CenterVertically
+    ) {
+        Text(
+            text = "$answered of $total subreddits",
+            fontSize = 12.sp,
+            color = Color(0xFF8E8E93)
+        )
+        if (answered < total) {
+            Spacer(modifier = Modifier.width(8.dp))
+            CircularProgressIndicator(
+                modifier = Modifier.size(10.dp),
+                strokeWidth = 1.5.dp,
+                color = Color(0xFF007AFF)
+            )
+        }
+    }
+}
+
+@Composable
+fun FreshnessBanner(
+    source: ResultSource,
+    ageMillis: Long,
+    isRevalidating: Boolean,
+    revalidationFailed: Boolean
+) {
+    Row(
+        modifier = Modifier
+            .fillMaxWidth()
+            .padding(horizontal = 16.dp, vertical = 4.dp),
+        verticalAlignment = Alignment.CenterVertically
+    ) {
+        Icon(
+            imageVector = Icons.Default.Schedule,
+            contentDescription = null,
+            tint = Color(0xFF8E8E93),
+            modifier = Modifier.size(12.dp)
+        )
+        Spacer(modifier = Modifier.width(4.dp))
+        Text(
+            text = when (source) {
+                ResultSource.CACHE, ResultSource.MEMORY -> "Cached ${formatAge(ageMillis)}"
+                ResultSource.STORE -> "Saved ${formatAge(ageMillis)}"
+                else -> "Up to date"
+            },
+            fontSize = 12.sp,
+            color = Color(0xFF8E8E93)
+        )
+        if (isRevalidating) {
+            Spacer(modifier = Modifier.width(8.dp))
+            CircularProgressIndicator(
+                modifier = Modifier.size(10.dp),
+                strokeWidth = 1.5.dp,
+                color = Color(0xFF007AFF)
+            )
+        } else if (revalidationFailed) {
+            Text(
+                text = " · couldn't refresh",
+                fontSize = 12.sp,
+                color = Color(0xFF8E8E93)
+            )
+        }
+    }
+}
+
 @Composable
 fun LoadingView() {
     Box(
@@ -284,22 +525,101 @@ fun EmptyView(query: String) {
     }
 }
 
+private val CARD_IMAGE_HEIGHT = 120.dp
+
+/** Rows from the end of the list at which the next page is requested while idle. */
+const val DEFAULT_PREFETCH_DISTANCE = 5
+
+// Extra look-ahead scales with scroll speed: distance += velocity (rows/s) * this.
+private const val PREFETCH_LOOKAHEAD_SECONDS = 1.5f
+private const val MAX_PREFETCH_DISTANCE = 30
+
+// Cards beyond the last visible one whose images are fetched and decoded ahead of time.
+private const val IMAGE_PREFETCH_COUNT = 6
+
 @Composable
 fun PostsList(
-    posts: List<RedditPost>,
+    posts: List<RedditPostUiModel>,
     isLoadingMore: Boolean,
     hasMorePosts: Boolean,
-    onLoadMore: () -> Unit,
-    onPostClick: (RedditPost) -> Unit
+    loadMoreError: String?,
+    onLoadMore: (isPrefetch: Boolean) -> Unit,
+    onRetryLoadMore: () -> Unit,
+    onPostClick: (RedditPostUiModel) -> Unit,
+    imageTargets: RedditImageTargets = RedditImageTargets.DEFAULT,
+    prefetchDistance: Int = DEFAULT_PREFETCH_DISTANCE
 ) {
+    val listState = rememberLazyListState()
+    val currentOnLoadMore by rememberUpdatedState(onLoadMore)
+
+    // Infinite scroll: request the next page once the user is within the (velocity
+    // adjusted) prefetch distance of the end. Leaving the screen cancels this effect.
+    LaunchedEffect(listState, hasMorePosts, prefetchDistance) {
+        if (!hasMorePosts) return@LaunchedEffect
+
+        var lastIndex = listState.firstVisibleItemIndex
+        var lastTimeNanos = System.nanoTime()
+        var velocity = 0f
+
+        snapshotFlow {
+            val layoutInfo = listState.layoutInfo
+            (layoutInfo.visibleItemsInfo.lastOrNull()?.index ?: 0) to layoutInfo.totalItemsCount
+        }.collect { (lastVisible, totalItems) ->
+            val now = System.nanoTime()
+            val index = listState.firstVisibleItemIndex
+            val elapsedSeconds = (now - lastTimeNanos) / 1_000_000_000f
+            if (elapsedSeconds > 0f) {
+                val instant = ((index - lastIndex) / elapsedSeconds).coerceAtLeast(0f)
+                velocity = 0.7f * velocity + 0.3f * instant
+            }
+            lastIndex = index
+            lastTimeNanos = now
+
+            val distance = (prefetchDistance + velocity * PREFETCH_LOOKAHEAD_SECONDS)
+                .toInt()
+                .coerceAtMost(MAX_PREFETCH_DISTANCE)
+            if (totalItems > 0 && totalItems - 1 - lastVisible <= distance) {
+                // Until the footer itself is on screen the user isn't waiting on this page yet.
+                currentOnLoadMore(lastVisible < totalItems - 1)
+            }
+        }
+    }
+
+    // Warm the image cache for the cards just below the viewport, using the same request
+    // the card will make, so their bitmaps are already in memory when they scroll in.
+    // Keyed on the list itself: after a local re-sort or facet filter other posts sit at the
+    // same indices, so what was prefetched up to no longer applies. Restarting on an append
+    // only re-enqueues a few requests the memory cache already answers.
+    val context = LocalContext.current
+    LaunchedEffect(listState, imageTargets, posts) {
+        val imageLoader = context.imageLoader
+        var prefetchedUpTo = -1
+        snapshotFlow { listState.layoutInfo.visibleItemsInfo.lastOrNull()?.index ?: -1 }
+            .distinctUntilChanged()
+            .collect { lastVisible ->
+                val items = posts
+                val end = minOf(lastVisible + IMAGE_PREFETCH_COUNT, items.lastIndex)
+                for (index in maxOf(lastVisible + 1, prefetchedUpTo + 1)..end) {
+                    val url = items[index].imageUrl ?: continue
+                    imageLoader.enqueue(
+                        RedditImages.cardRequest(context, url, imageTargets.cardWidthPx, imageTargets.cardHeightPx)
+                    )
+                }
+                prefetchedUpTo = maxOf(prefetchedUpTo, end)
+            }
+    }
+
     LazyColumn(
+        state = listState,
         modifier = Modifier.fillMaxSize(),
         contentPadding = PaddingValues(16.dp),
         verticalArrangement = Arrangement.spacedBy(12.dp)
     ) {
-        items(posts) { post ->
+        items(posts, key = { it.id }, contentType = { it.mediaKind }) { post ->
             RedditPostCard(
                 post = post,
+                imageWidthPx = imageTargets.cardWidthPx,
+                imageHeightPx = imageTargets.cardHeightPx,
                 onClick = { onPostClick(post) }
             )
         }
@@ -313,28 +633,20 @@ fun PostsList(
                     contentAlignment = Alignment.Center
                 ) {
                     if (isLoadingMore) {
-                        Row(
-                            verticalAlignment = Alignment.CenterVertically
-                        ) {
-                            CircularProgressIndicator(
-                                modifier = Modifier.size(16.dp),
-                                color = Color(0xFF007AFF)
-                            )
-                            Spacer(modifier = Modifier.width(8.dp))
+                        CircularProgressIndicator(
+                            modifier = Modifier.size(16.dp),
+                            color = Color(0xFF007AFF)
+                        )
+                    } else if (loadMoreError != null) {
+                        Column(horizontalAlignment = Alignment.CenterHorizontally) {
                             Text(
-                                text = "Loading more posts...",
-                                color = Color(0xFF8E8E93),
-                                fontSize = 14.sp
+                                text = loadMoreError,
+                                fontSize = 13.sp,
+                                color = Color(0xFF8E8E93)
                             )
-                        }
-                    } else {
-                        Button(
-                            onClick = onLoadMore,
-                            colors = ButtonDefaults.buttonColors(
-                                containerColor = Color(0xFF007AFF)
-                            )
-                        ) {
-                            Text("Load More")
+                            TextButton(onClick = onRetryLoadMore) {
+                                Text("Retry", color = Color(0xFF007AFF))
+                            }
                         }
                     }
                 }
@@ -345,7 +657,9 @@ fun PostsList(
 
 @Composable
 fun RedditPostCard(
-    post: RedditPost,
+    post: RedditPostUiModel,
+    imageWidthPx: Int,
+    imageHeightPx: Int,
     onClick: () -> Unit
 ) {
     Card(
@@ -366,7 +680,7 @@ fun RedditPostCard(
                 verticalAlignment = Alignment.CenterVertically
             ) {
                 Text(
-                    text = "r/${post.subreddit}",
+                    text = post.subredditLabel,
                     fontSize = 14.sp,
                     fontWeight = FontWeight.Medium,
                     color = Color(0xFF007AFF)
@@ -382,7 +696,7 @@ fun RedditPostCard(
                 Spacer(modifier = Modifier.width(8.dp))
 
                 Text(
-                    text = "u/${post.author}",
+                    text = post.authorLabel,
                     fontSize = 14.sp,
                     color = Color(0xFF8E8E93)
                 )
@@ -390,7 +704,7 @@ fun RedditPostCard(
                 Spacer(modifier = Modifier.weight(1f))
 
                 Text(
-                    text = formatTime(post.created_utc),
+                    text = post.relativeTime,
                     fontSize = 12.sp,
                     color = Color(0xFF8E8E93)
                 )
@@ -409,10 +723,10 @@ fun RedditPostCard(
             )
 
             // Content preview
-            if (!post.selftext.isNullOrEmpty()) {
+            if (post.bodyPreview != null) {
                 Spacer(modifier = Modifier.height(8.dp))
                 Text(
-                    text = post.selftext!!,
+                    text = post.bodyPreview,
                     fontSize = 14.sp,
                     color = Color(0xFF8E8E93),
                     maxLines = 2,
@@ -421,15 +735,18 @@ fun RedditPostCard(
             }
 
             // Preview image
-            val imageUrl = post.previewImageUrl ?: post.thumbnailUrl
-            if (imageUrl != null) {
+            if (post.imageUrl != null) {
+                val context = LocalContext.current
+                val request = remember(post.imageUrl, imageWidthPx, imageHeightPx) {
+                    RedditImages.cardRequest(context, post.imageUrl, imageWidthPx, imageHeightPx)
+                }
                 Spacer(modifier = Modifier.height(12.dp))
                 AsyncImage(
-                    model = imageUrl,
+                    model = request,
                     contentDescription = null,
                     modifier = Modifier
                         .fillMaxWidth()
-                        .height(120.dp)
+                        .height(CARD_IMAGE_HEIGHT)
                         .clip(RoundedCornerShape(8.dp)),
                     contentScale = ContentScale.Crop
                 )
@@ -451,7 +768,7 @@ fun RedditPostCard(
                         modifier = Modifier.size(16.dp)
                     )
                     Text(
-                        text = post.score.toString(),
+                        text = post.scoreText,
                         fontSize = 14.sp,
                         color = Color(0xFFFF9500)
                     )
@@ -470,7 +787,7 @@ fun RedditPostCard(
                     )
                     Spacer(modifier = Modifier.width(4.dp))
                     Text(
-                        text = post.num_comments.toString(),
+                        text = post.commentCountText,
                         fontSize = 14.sp,
                         color = Color(0xFF8E8E93)
                     )
@@ -478,7 +795,7 @@ fun RedditPostCard(
 
                 Spacer(modifier = Modifier.weight(1f))
 
-                if (post.is_video) {
+                if (post.mediaKind == RedditMediaKind.VIDEO) {
                     Icon(
                         imageVector = Icons.Default.PlayCircleFilled,
                         contentDescription = "Video",
@@ -491,14 +808,11 @@ fun RedditPostCard(
     }
 }
 
-private fun formatTime(createdUtc: Double): String {
-    val now = System.currentTimeMillis() / 1000
-    val diff = now - createdUtc.toLong()
-
+private fun formatAge(ageMillis: Long): String {
+    val seconds = ageMillis / 1000
     return when {
-        diff < 60 -> "now"
-        diff < 3600 -> "${diff / 60}m"
-        diff < 86400 -> "${diff / 3600}h"
-        else -> "${diff / 86400}d"
+        seconds < 60 -> "just now"
+        seconds < 3600 -> "${seconds / 60}m ago"
+        else -> "${seconds / 3600}h ago"
     }
 }
@@ -2,118 +2,402 @@ package com.skipfeed.android.presentation
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
-import com.skipfeed.android.data.*
+import com.skipfeed.android.data.api.RequestPriority
+import com.skipfeed.android.data.model.RedditSort
+import com.skipfeed.android.data.model.RedditTimeFilter
+import com.skipfeed.android.data.model.ResultSource
+import com.skipfeed.android.data.repository.SearchRepository
+import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.collectLatest
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
+import javax.inject.Inject
 
 data class RedditSearchUiState(
-    val posts: List<RedditPost> = emptyList(),
+    // Everything loaded for the search, in server order; the list renders [visiblePosts].
+    val posts: PagedList<RedditPostUiModel> = PagedList.empty(),
+    val visiblePosts: List<RedditPostUiModel> = emptyList(),
     val isLoading: Boolean = false,
     val isLoadingMore: Boolean = false,
     val error: String? = null,
+    // A failed next-page load; shown in the list footer so loaded pages stay on screen.
+    val loadMoreError: String? = null,
     val hasMorePosts: Boolean = true,
     val selectedSort: RedditSort = RedditSort.RELEVANCE,
+    // The sort the loaded posts were fetched with; differs from selectedSort after a local re-sort.
+    val serverSort: RedditSort = RedditSort.RELEVANCE,
+    val postFilter: PostFilter = PostFilter.NONE,
+    val subredditFacets: List<FacetCount<String>> = emptyList(),
+    val mediaFacets: List<FacetCount<RedditMediaKind>> = emptyList(),
     val selectedTimeFilter: RedditTimeFilter = RedditTimeFilter.ALL,
     val showFilters: Boolean = false,
     val afterToken: String? = null,
-    val currentQuery: String = ""
+    val currentQuery: String = "",
+    val resultSource: ResultSource = ResultSource.NETWORK,
+    val resultAgeMillis: Long = 0L,
+    val isRevalidating: Boolean = false,
+    // The stale page on screen could not be refreshed; it is still shown.
+    val revalidationFailed: Boolean = false,
+    val generation: Long = 0L,
+    val selectedPost: RedditPostUiModel? = null,
+    val subreddits: List<String> = emptyList(),
+    val subredditsAnswered: Int = 0
 )
 
-class RedditSearchViewModel : ViewModel() {
-    private val redditApiService = RedditApiService()
-    
+/**
+ * One search the screen asked for. [generation] increases with every request so pages
+ * that arrive for a superseded search can be recognised and dropped.
+ */
+private data class SearchRequest(
+    val query: String,
+    val sort: RedditSort,
+    val timeFilter: RedditTimeFilter,
+    val subreddits: List<String>,
+    val forceRefresh: Boolean,
+    val generation: Long
+)
+
+@HiltViewModel
+class RedditSearchViewModel @Inject constructor(
+    private val searchRepository: SearchRepository
+) : ViewModel() {
+
     private val _uiState = MutableStateFlow(RedditSearchUiState())
     val uiState: StateFlow<RedditSearchUiState> = _uiState.asStateFlow()
-    
-    fun searchPosts(query: String) {
-        if (query.isBlank()) return
-        
-        _uiState.value = _uiState.value.copy(
-            isLoading = true,
-            error = null,
-            posts = emptyList(),
-            afterToken = null,
-            hasMorePosts = true,
-            currentQuery = query
-        )
-        
+
+    private val requests = MutableStateFlow<SearchRequest?>(null)
+    private var generation = 0L
+    private var loadMoreJob: Job? = null
+    private var imageTargets = RedditImageTargets.DEFAULT
+    private var index = LoadedPostIndex.EMPTY
+    // Ids of the loaded posts. The list keys cards by id, and a listing that shifts between
+    // requests can hand back a post the previous page already had.
+    private val loadedIds = HashSet<String>()
+
+    init {
+        // Latest wins: a new request cancels the collector of the previous one, which
+        // cancels its Retrofit call and with it the underlying OkHttp exchange.
         viewModelScope.launch {
-            redditApiService.searchPosts(
-                query = query,
-                sort = _uiState.value.selectedSort,
-                timeFilter = _uiState.value.selectedTimeFilter
-            ).fold(
-                onSuccess = { (posts, afterToken) ->
-                    _uiState.value = _uiState.value.copy(
-                        posts = posts,
-                        isLoading = false,
-                        error = null,
-                        afterToken = afterToken,
-                        hasMorePosts = afterToken != null
-                    )
-                },
-                onFailure = { error ->
-                    _uiState.value = _uiState.value.copy(
-                        isLoading = false,
-                        error = error.message ?: "Unknown error occurred"
+            requests.filterNotNull().collectLatest { request ->
+                loadMoreJob?.cancel()
+                if (request.subreddits.isNotEmpty()) {
+                    collectFanOut(request)
+                    return@collectLatest
+                }
+                searchRepository.observeRedditSearch(
+                    query = request.query,
+                    sort = request.sort,
+                    timeFilter = request.timeFilter,
+                    forceRefresh = request.forceRefresh
+                ).collect { result ->
+                    if (request.generation != generation) return@collect
+                    result.fold(
+                        onSuccess = { page ->
+                            loadedIds.clear()
+                            val posts = PagedList.of(unseen(RedditPostUiMapper.mapAll(page.posts, imageTargets)))
+                            index = LoadedPostIndex.of(posts)
+                            _uiState.update {
+                                it.copy(
+                                    posts = posts,
+                                    isLoading = false,
+                                    error = null,
+                                    afterToken = page.after,
+                                    hasMorePosts = page.after != null,
+                                    resultSource = page.source,
+                                    resultAgeMillis = page.ageMillis,
+                                    isRevalidating = page.isStale,
+                                    revalidationFailed = false
+                                ).withIndexedView()
+                            }
+                        },
+                        onFailure = { error ->
+                            _uiState.update {
+                                if (it.posts.isNotEmpty()) {
+                                    // Refreshing a stale local page failed; keep showing it.
+                                    it.copy(isRevalidating = false, revalidationFailed = true)
+                                } else {
+                                    it.copy(
+                                        isLoading = false,
+                                        isRevalidating = false,
+                                        error = error.message ?: "Unknown error occurred"
+                                    )
+                                }
+                            }
+                        }
                     )
                 }
+            }
+        }
+    }
+
+    /**
+     * Subreddit mode: each emission is the merged listing so far, so cards appear as soon
+     * as the fastest subreddit answers. Fan-out results are a single merged page with no
+     * continuation token, so load-more is off in this mode.
+     */
+    private suspend fun collectFanOut(request: SearchRequest) {
+        searchRepository.observeSubredditFanOut(
+            query = request.query,
+            subreddits = request.subreddits,
+            sort = request.sort,
+            timeFilter = request.timeFilter
+        ).collect { result ->
+            if (request.generation != generation) return@collect
+            val items = RedditPostUiMapper.mapAll(result.posts, imageTargets)
+            loadedIds.clear()
+            val posts = PagedList.of(unseen(items))
+            index = LoadedPostIndex.of(posts)
+            val allFailed = result.isComplete && result.failedSubreddits.size == result.total
+            _uiState.update {
+                it.copy(
+                    posts = posts,
+                    isLoading = !result.isComplete && items.isEmpty(),
+                    isRevalidating = !result.isComplete && items.isNotEmpty(),
+                    error = if (allFailed) "Couldn't reach any of the selected subreddits" else null,
+                    afterToken = null,
+                    hasMorePosts = false,
+                    resultSource = ResultSource.NETWORK,
+                    resultAgeMillis = 0L,
+                    subredditsAnswered = result.completed
+                ).withIndexedView()
+            }
+        }
+    }
+
+    /** Screen-derived image sizes; applies to pages mapped from now on. */
+    fun setImageTargets(targets: RedditImageTargets) {
+        imageTargets = targets
+    }
+
+    fun searchPosts(query: String) {
+        if (query.isBlank()) return
+
+        val state = _uiState.value
+        val current = requests.value
+        val isSameSearch = current != null &&
+            current.query == query &&
+            current.timeFilter == state.selectedTimeFilter &&
+            current.subreddits == state.subreddits
+        // Re-entering the screen for the search already on display is a no-op.
+        if (isSameSearch && state.error == null && (state.isLoading || state.posts.isNotEmpty())) return
+
+        submit(query)
+    }
+
+    private fun submit(query: String, forceRefresh: Boolean = false) {
+        generation++
+        loadMoreJob?.cancel()
+        index = LoadedPostIndex.EMPTY
+        loadedIds.clear()
+        _uiState.update {
+            it.copy(
+                isLoading = true,
+                isLoadingMore = false,
+                isRevalidating = false,
+                revalidationFailed = false,
+                error = null,
+                loadMoreError = null,
+                posts = PagedList.empty(),
+                visiblePosts = emptyList(),
+                serverSort = it.selectedSort,
+                // Subreddit facets belong to the old results; a media type still makes sense.
+                postFilter = PostFilter(mediaKind = it.postFilter.mediaKind),
+                subredditFacets = emptyList(),
+                mediaFacets = emptyList(),
+                afterToken = null,
+                hasMorePosts = true,
+                currentQuery = query,
+                generation = generation,
+                subredditsAnswered = 0
             )
         }
+        requests.value = SearchRequest(
+            query = query,
+            sort = _uiState.value.selectedSort,
+            timeFilter = _uiState.value.selectedTimeFilter,
+            subreddits = _uiState.value.subreddits,
+            forceRefresh = forceRefresh,
+            generation = generation
+        )
     }
-    
-    fun loadMorePosts() {
+
+    /**
+     * Appends the next page. [isPrefetch] marks look-ahead loads the user is not yet
+     * waiting on, which the rate limiter schedules behind user-initiated requests.
+     * After a failure nothing loads automatically until [retryLoadMore].
+     */
+    fun loadMorePosts(isPrefetch: Boolean = false) {
         val currentState = _uiState.value
-        if (currentState.isLoadingMore || !currentState.hasMorePosts || currentState.afterToken == null) {
+        if (currentState.isLoading || currentState.isLoadingMore || !currentState.hasMorePosts ||
+            currentState.afterToken == null || currentState.loadMoreError != null
+        ) {
             return
         }
-        
-        _uiState.value = currentState.copy(isLoadingMore = true)
-        
-        viewModelScope.launch {
-            redditApiService.searchPosts(
+
+        val requestGeneration = generation
+        _uiState.update { it.copy(isLoadingMore = true) }
+
+        loadMoreJob = viewModelScope.launch {
+            val result = searchRepository.searchReddit(
                 query = currentState.currentQuery,
-                sort = currentState.selectedSort,
+                sort = currentState.serverSort,
                 timeFilter = currentState.selectedTimeFilter,
-                after = currentState.afterToken
-            ).fold(
-                onSuccess = { (newPosts, afterToken) ->
-                    _uiState.value = _uiState.value.copy(
-                        posts = _uiState.value.posts + newPosts,
-                        isLoadingMore = false,
-                        afterToken = afterToken,
-                        hasMorePosts = afterToken != null
-                    )
+                after = currentState.afterToken,
+                priority = if (isPrefetch) RequestPriority.PREFETCH else RequestPriority.USER
+            )
+            val items = result.getOrNull()?.let { RedditPostUiMapper.mapAll(it.posts, imageTargets) }
+            // A page for a search that has since been replaced must not leak into the new one.
+            if (requestGeneration != generation) return@launch
+            result.fold(
+                onSuccess = { page ->
+                    val posts = _uiState.value.posts.plusPage(unseen(items.orEmpty()))
+                    index = index.appended(posts)
+                    _uiState.update {
+                        it.copy(
+                            posts = posts,
+                            isLoadingMore = false,
+                            afterToken = page.after,
+                            hasMorePosts = page.after != null
+                        ).withIndexedView()
+                    }
+                    compactFarPages(_uiState.value.posts)
                 },
                 onFailure = { error ->
-                    _uiState.value = _uiState.value.copy(
-                        isLoadingMore = false,
-                        error = error.message ?: "Failed to load more posts"
-                    )
+                    _uiState.update {
+                        it.copy(
+                            isLoadingMore = false,
+                            loadMoreError = error.message ?: "Failed to load more posts"
+                        )
+                    }
                 }
             )
         }
     }
-    
-    fun updateSort(sort: RedditSort, query: String) {
-        _uiState.value = _uiState.value.copy(selectedSort = sort)
-        searchPosts(query)
+
+    /** Drops posts already loaded for this search and records the rest as loaded. */
+    private fun unseen(posts: List<RedditPostUiModel>): List<RedditPostUiModel> =
+        posts.filter { loadedIds.add(it.id) }
+
+    /**
+     * Keeps heap flat on long scrolls: once a page is [FULL_BODY_PAGES] behind the newest
+     * one, its posts keep only what a card shows. [openPost] restores the full body.
+     */
+    private fun compactFarPages(posts: PagedList<RedditPostUiModel>) {
+        val pageIndex = posts.pageCount - 1 - FULL_BODY_PAGES
+        if (pageIndex < 0) return
+        posts.compactPage(pageIndex) { page -> page.map { it.copy(post = it.post.compactForCard()) } }
+    }
+
+    fun openPost(item: RedditPostUiModel) {
+        _uiState.update { it.copy(selectedPost = item) }
+        if (!item.post.isBodyTruncated) return
+
+        viewModelScope.launch {
+            val fullPost = try {
+                searchRepository.getStoredRedditPost(item.id)
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                null
+            } ?: return@launch
+            val fullItem = item.copy(post = fullPost)
+            _uiState.update {
+                if (it.selectedPost?.id == item.id) it.copy(selectedPost = fullItem) else it
+            }
+        }
+    }
+
+    fun closePost() {
+        _uiState.update { it.copy(selectedPost = null) }
+    }
+
+    fun retryLoadMore() {
+        _uiState.update { it.copy(loadMoreError = null) }
+        loadMorePosts()
+    }
+
+    fun cancelLoadMore() {
+        loadMoreJob?.cancel()
+        loadMoreJob = null
+        _uiState.update { it.copy(isLoadingMore = false) }
+    }
+
+    fun retry() {
+        val query = requests.value?.query ?: _uiState.value.currentQuery
+        if (query.isNotBlank()) submit(query)
+    }
+
+    /**
+     * Reorders what is already loaded; nothing is fetched. [refreshFromServer] asks Reddit
+     * for the listing in the selected order.
+     */
+    fun updateSort(sort: RedditSort) {
+        if (sort == _uiState.value.selectedSort) return
+        _uiState.update { it.copy(selectedSort = sort).withIndexedView() }
     }
-    
+
+    fun updatePostFilter(filter: PostFilter) {
+        if (filter == _uiState.value.postFilter) return
+        _uiState.update { it.copy(postFilter = filter).withIndexedView() }
+    }
+
+    /** Re-runs the search against Reddit with the selected sort, bypassing every cache. */
+    fun refreshFromServer(query: String) {
+        if (query.isNotBlank()) submit(query, forceRefresh = true)
+    }
+
+    // Derives the displayed list and facet counts from the index, without a request.
+    private fun RedditSearchUiState.withIndexedView(): RedditSearchUiState {
+        val localSort = selectedSort.takeIf { it != serverSort }
+        return copy(
+            visiblePosts = index.query(localSort, postFilter),
+            subredditFacets = index.subredditFacets(postFilter.mediaKind),
+            mediaFacets = index.mediaFacets(postFilter.subreddit)
+        )
+    }
+
     fun updateTimeFilter(timeFilter: RedditTimeFilter, query: String) {
-        _uiState.value = _uiState.value.copy(selectedTimeFilter = timeFilter)
-        searchPosts(query)
+        if (timeFilter == _uiState.value.selectedTimeFilter) return
+        _uiState.update { it.copy(selectedTimeFilter = timeFilter) }
+        submit(query)
     }
-    
+
+    /**
+     * Restricts the search to the subreddits listed in [text] (comma or space separated,
+     * with or without "r/"); an empty list returns to a site-wide search.
+     */
+    fun updateSubreddits(text: String, query: String) {
+        val subreddits = parseSubreddits(text)
+        if (subreddits == _uiState.value.subreddits) return
+        _uiState.update { it.copy(subreddits = subreddits) }
+        if (query.isNotBlank()) submit(query)
+    }
+
+    private fun parseSubreddits(text: String): List<String> {
+        return text.split(',', ' ', '\n')
+            .map { it.trim().removePrefix("/").removePrefix("r/") }
+            .filter { SUBREDDIT_NAME.matches(it) }
+            .distinctBy { it.lowercase() }
+            .take(MAX_SUBREDDITS)
+    }
+
     fun toggleFilters() {
-        _uiState.value = _uiState.value.copy(
-            showFilters = !_uiState.value.showFilters
-        )
+        _uiState.update { it.copy(showFilters = !it.showFilters) }
     }
-    
+
     fun clearError() {
-        _uiState.value = _uiState.value.copy(error = null)
+        _uiState.update { it.copy(error = null) }
+    }
+
+    companion object {
+        private const val FULL_BODY_PAGES = 3
+        private const val MAX_SUBREDDITS = 10
+        private val SUBREDDIT_NAME = Regex("[A-Za-z0-9_]{2,21}")
     }
 }
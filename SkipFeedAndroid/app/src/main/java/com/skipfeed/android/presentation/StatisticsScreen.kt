@@ -2,6 +2,7 @@ package com.skipfeed.android.presentation
 
 import androidx.compose.foundation.Canvas
 import androidx.compose.foundation.background
+import androidx.compose.foundation.gestures.detectTapGestures
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
 import androidx.compose.foundation.shape.RoundedCornerShape
@@ -20,6 +21,7 @@ import androidx.compose.ui.graphics.Path
 import androidx.compose.ui.graphics.StrokeCap
 import androidx.compose.ui.graphics.drawscope.Stroke
 import androidx.compose.ui.graphics.vector.ImageVector
+import androidx.compose.ui.input.pointer.pointerInput
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.text.font.FontWeight
@@ -28,11 +30,14 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.compose.ui.res.stringResource
 import androidx.hilt.navigation.compose.hiltViewModel
+import com.skipfeed.android.BuildConfig
 import com.skipfeed.android.R
+import com.skipfeed.android.data.api.CallTiming
 import com.skipfeed.android.data.LocalizationManager
 import com.skipfeed.android.data.model.Platform
-import com.skipfeed.android.data.model.SearchHistoryItem
+import com.skipfeed.android.data.model.TimeOfDayCounts
 import com.skipfeed.android.data.model.UsageAnalytics
+import com.skipfeed.android.presentation.viewmodel.NetworkDebugInfo
 import com.skipfeed.android.presentation.viewmodel.StatisticsViewModel
 import java.text.SimpleDateFormat
 import java.util.*
@@ -45,10 +50,15 @@ fun StatisticsScreen(
     val localizationManager = remember { LocalizationManager.getInstance() }
     var selectedTimeRange by remember { mutableStateOf(TimeRange.WEEK) }
     val usageAnalytics by viewModel.usageAnalytics.collectAsState()
-    val searchHistory by viewModel.searchHistory.collectAsState()
+    val timeOfDay by viewModel.timeOfDay.collectAsState()
 
-    // Debug: Add a button to clear all data for testing
+    // Debug builds: long-press the title to show network timings and cache counters
     var showDebugOptions by remember { mutableStateOf(false) }
+    val networkDebug by viewModel.networkDebug.collectAsState()
+
+    LaunchedEffect(showDebugOptions) {
+        if (showDebugOptions) viewModel.refreshNetworkDebug()
+    }
 
     Column(
         modifier = Modifier
@@ -72,7 +82,14 @@ fun StatisticsScreen(
                     text = stringResource(R.string.stats),
                     fontSize = 17.sp,
                     fontWeight = FontWeight.SemiBold,
-                    color = Color(0xFF1C1C1E)
+                    color = Color(0xFF1C1C1E),
+                    modifier = Modifier.pointerInput(Unit) {
+                        detectTapGestures(
+                            onLongPress = {
+                                if (BuildConfig.DEBUG) showDebugOptions = !showDebugOptions
+                            }
+                        )
+                    }
                 )
             }
         }
@@ -112,15 +129,22 @@ fun StatisticsScreen(
 
             // Time of Day Analysis
             item {
-                TimeOfDayAnalysisCard(searchHistory = searchHistory)
+                TimeOfDayAnalysisCard(timeOfDay = timeOfDay)
             }
 
             // Insights Section
             item {
-                ModernInsightsCard(
-                    usageAnalytics = usageAnalytics,
-                    searchHistory = searchHistory
-                )
+                ModernInsightsCard(usageAnalytics = usageAnalytics)
+            }
+
+            if (showDebugOptions) {
+                item {
+                    NetworkDebugCard(
+                        info = networkDebug,
+                        onRefresh = { viewModel.refreshNetworkDebug() },
+                        onClear = { viewModel.clearNetworkTimings() }
+                    )
+                }
             }
         }
     }
@@ -774,10 +798,10 @@ private fun LineChartWithAxes(
 }
 
 @Composable
-private fun TimeOfDayAnalysisCard(searchHistory: List<SearchHistoryItem>) {
-    // Calculate time of day data from real search history
-    val timeOfDayData = calculateTimeOfDayDataComposable(searchHistory)
-    val mostActiveTime = if (searchHistory.isEmpty()) {
+private fun TimeOfDayAnalysisCard(timeOfDay: TimeOfDayCounts) {
+    // Time of day data from real search history
+    val timeOfDayData = calculateTimeOfDayDataComposable(timeOfDay)
+    val mostActiveTime = if (timeOfDay.total == 0) {
         "evening" // Default when no data
     } else {
         timeOfDayData.maxByOrNull { it.second }?.first ?: "evening"
@@ -848,55 +872,20 @@ private fun TimeOfDayAnalysisCard(searchHistory: List<SearchHistoryItem>) {
                 verticalArrangement = Arrangement.spacedBy(12.dp)
             ) {
                 timeOfDayData.forEach { (period, count) ->
-                    TimeOfDayRowIOS(period, count, searchHistory.size)
+                    TimeOfDayRowIOS(period, count, timeOfDay.total)
                 }
             }
         }
     }
 }
 
-// Helper function to calculate time of day data with localization
+// Helper function to label the time of day counts with localization
 @Composable
-private fun calculateTimeOfDayDataComposable(searchHistory: List<SearchHistoryItem>): List<Pair<String, Int>> {
-    val morningText = stringResource(R.string.morning)
-    val afternoonText = stringResource(R.string.afternoon)
-    val eveningText = stringResource(R.string.evening)
-
-    // If no search history, return all zeros
-    if (searchHistory.isEmpty()) {
-        return listOf(
-            morningText to 0,
-            afternoonText to 0,
-            eveningText to 0
-        )
-    }
-
-    var morningCount = 0
-    var afternoonCount = 0
-    var eveningCount = 0
-
-    val calendar = Calendar.getInstance()
-
-    searchHistory.forEach { item ->
-        calendar.timeInMillis = item.timestamp
-        val hour = calendar.get(Calendar.HOUR_OF_DAY)
-        val minute = calendar.get(Calendar.MINUTE)
-        val totalMinutes = hour * 60 + minute
-
-        // Morning: 3:00 (180) to 11:30 (690)
-        // Afternoon: 11:30 (690) to 18:00 (1080)
-        // Evening: 18:00 (1080) to 3:00 (180 next day)
-        when {
-            totalMinutes >= 180 && totalMinutes < 690 -> morningCount++
-            totalMinutes >= 690 && totalMinutes < 1080 -> afternoonCount++
-            else -> eveningCount++
-        }
-    }
-
+private fun calculateTimeOfDayDataComposable(timeOfDay: TimeOfDayCounts): List<Pair<String, Int>> {
     return listOf(
-        morningText to morningCount,
-        afternoonText to afternoonCount,
-        eveningText to eveningCount
+        stringResource(R.string.morning) to timeOfDay.morning,
+        stringResource(R.string.afternoon) to timeOfDay.afternoon,
+        stringResource(R.string.evening) to timeOfDay.evening
     )
 }
 
@@ -1015,8 +1004,7 @@ private fun TimeOfDayRowIOS(
 
 @Composable
 private fun ModernInsightsCard(
-    usageAnalytics: UsageAnalytics,
-    searchHistory: List<SearchHistoryItem>
+    usageAnalytics: UsageAnalytics
 ) {
     // Calculate real insights
     val focusScore = min(100, usageAnalytics.totalSearches * 2)
@@ -1156,6 +1144,140 @@ private fun InsightRowWithValue(
 
 // Data classes for charts - removed duplicate
 
+@Composable
+private fun NetworkDebugCard(
+    info: NetworkDebugInfo?,
+    onRefresh: () -> Unit,
+    onClear: () -> Unit
+) {
+    Card(
+        modifier = Modifier.fillMaxWidth(),
+        shape = RoundedCornerShape(20.dp),
+        colors = CardDefaults.cardColors(containerColor = Color.White),
+        elevation = CardDefaults.cardElevation(defaultElevation = 2.dp)
+    ) {
+        Column(
+            modifier = Modifier.padding(20.dp)
+        ) {
+            Row(
+                verticalAlignment = Alignment.CenterVertically
+            ) {
+                Icon(
+                    imageVector = Icons.Default.NetworkCheck,
+                    contentDescription = null,
+                    tint = Color(0xFF8E8E93),
+                    modifier = Modifier.size(24.dp)
+                )
+
+                Spacer(modifier = Modifier.width(12.dp))
+
+                Text(
+                    text = "Network (debug)",
+                    fontSize = 18.sp,
+                    fontWeight = FontWeight.SemiBold,
+                    color = Color(0xFF1C1C1E),
+                    modifier = Modifier.weight(1f)
+                )
+
+                IconButton(onClick = onRefresh) {
+                    Icon(Icons.Default.Refresh, contentDescription = "Refresh", tint = Color(0xFF007AFF))
+                }
+                IconButton(onClick = onClear) {
+                    Icon(Icons.Default.Delete, contentDescription = "Clear", tint = Color(0xFFFF3B30))
+                }
+            }
+
+            if (info == null) return@Column
+
+            Spacer(modifier = Modifier.height(12.dp))
+
+            val networkCalls = info.timings.filter { !it.cacheHit && it.failure == null }
+            DebugLine("Calls", "${info.timings.size} (${info.timings.count { it.cacheHit }} cache hits, " +
+                "${info.timings.count { it.failure != null }} failed)")
+            DebugLine("Median total", medianMs(networkCalls) { it.totalMs })
+            DebugLine("Median TTFB", medianMs(networkCalls) { it.ttfbMs })
+            DebugLine("Median DNS / connect / TLS",
+                "${medianMs(networkCalls) { it.dnsMs }} / ${medianMs(networkCalls) { it.connectMs }} / " +
+                    medianMs(networkCalls) { it.tlsMs })
+            DebugLine("Search p50 / p95 / p99", with(info.searchLatency) {
+                "${p50Millis}ms / ${p95Millis}ms / ${p99Millis}ms"
+            })
+            DebugLine("Hedged", with(info.searchLatency) {
+                "${(hedgeRate * 100).roundToInt()}% ($hedgeWins won, $timeouts timed out)"
+            })
+            DebugLine("Connection reuse", "${networkCalls.count { it.connectionReused }}/${networkCalls.size}")
+            DebugLine("Page cache", "${(info.pageCacheStats.hitRate * 100).roundToInt()}% hits, " +
+                "${info.coalescedCalls} coalesced")
+            DebugLine("Images", "${info.imageStats.memoryHits} mem / ${info.imageStats.diskHits} disk / " +
+                "${info.imageStats.networkLoads} net, ${formatBytes(info.imageStats.bytesFetched)}")
+
+            Spacer(modifier = Modifier.height(12.dp))
+
+            info.timings.take(DEBUG_TIMING_ROWS).forEach { timing ->
+                Text(
+                    text = describeTiming(timing),
+                    fontSize = 11.sp,
+                    color = if (timing.failure != null) Color(0xFFFF3B30) else Color(0xFF3C3C43),
+                    modifier = Modifier.padding(vertical = 2.dp)
+                )
+            }
+        }
+    }
+}
+
+@Composable
+private fun DebugLine(label: String, value: String) {
+    Row(
+        modifier = Modifier
+            .fillMaxWidth()
+            .padding(vertical = 2.dp)
+    ) {
+        Text(
+            text = label,
+            fontSize = 13.sp,
+            color = Color(0xFF8E8E93),
+            modifier = Modifier.weight(1f)
+        )
+        Text(
+            text = value,
+            fontSize = 13.sp,
+            fontWeight = FontWeight.Medium,
+            color = Color(0xFF1C1C1E)
+        )
+    }
+}
+
+private const val DEBUG_TIMING_ROWS = 20
+
+private fun medianMs(timings: List<CallTiming>, phase: (CallTiming) -> Long): String {
+    val values = timings.map(phase).filter { it >= 0 }.sorted()
+    return if (values.isEmpty()) "–" else "${values[values.size / 2]}ms"
+}
+
+private fun describeTiming(timing: CallTiming): String {
+    val phases = if (timing.cacheHit) {
+        "cache"
+    } else {
+        listOfNotNull(
+            timing.dnsMs.takeIf { it >= 0 }?.let { "dns $it" },
+            timing.connectMs.takeIf { it >= 0 }?.let { "conn $it" },
+            timing.tlsMs.takeIf { it >= 0 }?.let { "tls $it" },
+            timing.ttfbMs.takeIf { it >= 0 }?.let { "ttfb $it" },
+            timing.bodyMs.takeIf { it >= 0 }?.let { "body $it" }
+        ).joinToString(" · ")
+    }
+    val status = timing.failure ?: timing.code?.toString() ?: "?"
+    val reuse = if (timing.connectionReused) " · reused" else ""
+    return "${timing.method} ${timing.path} $status · ${timing.totalMs}ms ($phases) · " +
+        "${formatBytes(timing.bytes)}${timing.protocol?.let { " · $it" } ?: ""}$reuse"
+}
+
+private fun formatBytes(bytes: Long): String = when {
+    bytes < 1024 -> "${bytes}B"
+    bytes < 1024 * 1024 -> "${bytes / 1024}KB"
+    else -> String.format(Locale.US, "%.1fMB", bytes / (1024f * 1024f))
+}
+
 enum class TimeRange {
     WEEK, MONTH
 }
@@ -0,0 +1,38 @@
+package com.skipfeed.android.presentation.components
+
+import android.content.Context
+import android.graphics.Bitmap
+import coil.request.ImageRequest
+import coil.size.Scale
+
+/**
+ * Coil requests for Reddit preview images.
+ *
+ * Card thumbnails are decoded to exactly their slot size in RGB_565, which halves bitmap
+ * memory against ARGB_8888; hardware bitmaps are disabled because they ignore the config.
+ * The detail image uses the card bitmap as its placeholder so it appears instantly and
+ * sharpens once the larger rendition arrives.
+ */
+object RedditImages {
+
+    fun cardRequest(context: Context, url: String, widthPx: Int, heightPx: Int): ImageRequest {
+        return ImageRequest.Builder(context)
+            .data(url)
+            .size(widthPx, heightPx)
+            .scale(Scale.FILL)
+            .bitmapConfig(Bitmap.Config.RGB_565)
+            .allowHardware(false)
+            .memoryCacheKey(cardMemoryKey(url))
+            .build()
+    }
+
+    fun detailRequest(context: Context, url: String, cardUrl: String?): ImageRequest {
+        return ImageRequest.Builder(context)
+            .data(url)
+            .placeholderMemoryCacheKey(cardUrl?.let(::cardMemoryKey))
+            .crossfade(true)
+            .build()
+    }
+
+    private fun cardMemoryKey(url: String): String = "reddit-card:$url"
+}
@@ -1,12 +1,16 @@
 package com.skipfeed.android.presentation.components
 
+import android.content.ActivityNotFoundException
 import android.content.Intent
 import android.net.Uri
+import android.widget.Toast
 import androidx.compose.foundation.background
+import androidx.compose.foundation.clickable
+import androidx.compose.foundation.text.ClickableText
 import androidx.compose.foundation.layout.*
-import androidx.compose.foundation.rememberScrollState
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.shape.RoundedCornerShape
-import androidx.compose.foundation.verticalScroll
 import androidx.compose.material.icons.Icons
 import androidx.compose.material.icons.filled.Close
 import androidx.compose.material.icons.filled.Share
@@ -18,6 +22,9 @@ import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.layout.ContentScale
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.text.AnnotatedString
+import androidx.compose.ui.text.TextStyle
+import androidx.compose.ui.text.font.FontFamily
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextOverflow
 import androidx.compose.ui.unit.dp
@@ -25,19 +32,41 @@ import androidx.compose.ui.unit.sp
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.window.Dialog
 import androidx.compose.ui.window.DialogProperties
+import androidx.hilt.navigation.compose.hiltViewModel
 import com.skipfeed.android.R
 import coil.compose.AsyncImage
-import com.skipfeed.android.data.RedditPost
-import java.text.SimpleDateFormat
-import java.util.*
+import com.skipfeed.android.presentation.MarkdownBlock
+import com.skipfeed.android.presentation.MarkdownBlockKind
+import com.skipfeed.android.presentation.RedditCommentRow
+import com.skipfeed.android.presentation.RedditMarkdown
+import com.skipfeed.android.presentation.RedditMediaKind
+import com.skipfeed.android.presentation.RedditPostDetailViewModel
+import com.skipfeed.android.presentation.RedditPostUiModel
 
 @OptIn(ExperimentalMaterial3Api::class)
 @Composable
 fun RedditPostDetailDialog(
-    post: RedditPost,
+    item: RedditPostUiModel,
     onDismiss: () -> Unit
 ) {
     val context = LocalContext.current
+    val post = item.post
+    val detailViewModel: RedditPostDetailViewModel = hiltViewModel()
+    val detail by detailViewModel.uiState.collectAsState()
+
+    LaunchedEffect(post.id) {
+        detailViewModel.load(post)
+    }
+
+    // Runs again when the full body of a compacted post has been restored.
+    LaunchedEffect(post.id, post.selftext) {
+        detailViewModel.renderBody(post)
+    }
+
+    // Only the open post's thread is kept; drop it with the dialog.
+    DisposableEffect(detailViewModel) {
+        onDispose { detailViewModel.clear() }
+    }
 
     Dialog(
         onDismissRequest = onDismiss,
@@ -119,178 +148,277 @@ fun RedditPostDetailDialog(
                     }
                 }
 
-                // Scrollable content
-                Column(
+                // Post and its comments share one lazy list, so a long thread only
+                // composes the rows on screen
+                LazyColumn(
                     modifier = Modifier
                         .fillMaxSize()
-                        .verticalScroll(rememberScrollState())
-                        .padding(horizontal = 16.dp)
-                        .padding(bottom = 16.dp)
+                        .padding(horizontal = 16.dp),
+                    contentPadding = PaddingValues(bottom = 16.dp)
                 ) {
-                    // Post header
-                    Row(
-                        verticalAlignment = Alignment.CenterVertically
-                    ) {
-                        Text(
-                            text = "r/${post.subreddit}",
-                            fontSize = 14.sp,
-                            fontWeight = FontWeight.Medium,
-                            color = Color(0xFF007AFF)
-                        )
+                    item(contentType = "post") {
+                        Column {
+                            // Post header
+                            Row(
+                                verticalAlignment = Alignment.CenterVertically
+                            ) {
+                                Text(
+                                    text = item.subredditLabel,
+                                    fontSize = 14.sp,
+                                    fontWeight = FontWeight.Medium,
+                                    color = Color(0xFF007AFF)
+                                )
 
-                        Spacer(modifier = Modifier.width(8.dp))
+                                Spacer(modifier = Modifier.width(8.dp))
 
-                        Text(
-                            text = "•",
-                            color = Color(0xFF8E8E93)
-                        )
+                                Text(
+                                    text = "•",
+                                    color = Color(0xFF8E8E93)
+                                )
 
-                        Spacer(modifier = Modifier.width(8.dp))
+                                Spacer(modifier = Modifier.width(8.dp))
 
-                        Text(
-                            text = "u/${post.author}",
-                            fontSize = 14.sp,
-                            color = Color(0xFF8E8E93)
-                        )
+                                Text(
+                                    text = item.authorLabel,
+                                    fontSize = 14.sp,
+                                    color = Color(0xFF8E8E93)
+                                )
 
-                        Spacer(modifier = Modifier.weight(1f))
+                                Spacer(modifier = Modifier.weight(1f))
 
-                        Text(
-                            text = formatTime(post.created_utc),
-                            fontSize = 12.sp,
-                            color = Color(0xFF8E8E93)
-                        )
-                    }
+                                Text(
+                                    text = item.relativeTime,
+                                    fontSize = 12.sp,
+                                    color = Color(0xFF8E8E93)
+                                )
+                            }
 
-                    Spacer(modifier = Modifier.height(16.dp))
+                            Spacer(modifier = Modifier.height(16.dp))
 
-                    // Title
-                    Text(
-                        text = post.title,
-                        fontSize = 20.sp,
-                        fontWeight = FontWeight.Bold,
-                        color = Color(0xFF1C1C1E),
-                        lineHeight = 26.sp
-                    )
+                            // Title
+                            Text(
+                                text = item.title,
+                                fontSize = 20.sp,
+                                fontWeight = FontWeight.Bold,
+                                color = Color(0xFF1C1C1E),
+                                lineHeight = 26.sp
+                            )
 
-                    Spacer(modifier = Modifier.height(16.dp))
+                            Spacer(modifier = Modifier.height(16.dp))
 
-                    // Preview image if available
-                    val imageUrl = post.previewImageUrl ?: post.thumbnailUrl
-                    if (imageUrl != null) {
-                        AsyncImage(
-                            model = imageUrl,
-                            contentDescription = null,
-                            modifier = Modifier
-                                .fillMaxWidth()
-                                .clip(RoundedCornerShape(12.dp)),
-                            contentScale = ContentScale.Fit
-                        )
+                            // Preview image if available
+                            if (item.detailImageUrl != null) {
+                                val request = remember(item.detailImageUrl) {
+                                    RedditImages.detailRequest(context, item.detailImageUrl, item.imageUrl)
+                                }
+                                AsyncImage(
+                                    model = request,
+                                    contentDescription = null,
+                                    modifier = Modifier
+                                        .fillMaxWidth()
+                                        .clip(RoundedCornerShape(12.dp)),
+                                    contentScale = ContentScale.Fit
+                                )
+
+                                Spacer(modifier = Modifier.height(16.dp))
+                            }
 
-                        Spacer(modifier = Modifier.height(16.dp))
+                        }
                     }
 
-                    // Self text if available
+                    // Self text, one lazily measured item per markdown block; the card
+                    // preview stands in while the body is parsed off the main thread
                     if (!post.selftext.isNullOrEmpty()) {
-                        Text(
-                            text = post.selftext!!,
-                            fontSize = 16.sp,
-                            color = Color(0xFF1C1C1E),
-                            lineHeight = 22.sp
-                        )
-
-                        Spacer(modifier = Modifier.height(16.dp))
+                        if (detail.bodyBlocks.isEmpty()) {
+                            item(contentType = "bodyPreview") {
+                                Text(
+                                    text = item.bodyPreview.orEmpty(),
+                                    fontSize = 16.sp,
+                                    color = Color(0xFF1C1C1E),
+                                    lineHeight = 22.sp,
+                                    modifier = Modifier.padding(bottom = 16.dp)
+                                )
+                            }
+                        } else {
+                            items(
+                                items = detail.bodyBlocks,
+                                key = { "body-${it.index}" },
+                                contentType = { it.kind }
+                            ) { block ->
+                                MarkdownBlockView(
+                                    block = block,
+                                    onLinkClick = { link ->
+                                        // Only http, https and mailto links carry an annotation.
+                                        try {
+                                            context.startActivity(Intent(Intent.ACTION_VIEW, Uri.parse(link)))
+                                        } catch (e: ActivityNotFoundException) {
+                                            Toast.makeText(context, "No app can open $link", Toast.LENGTH_SHORT).show()
+                                        } catch (e: RuntimeException) {
+                                            Toast.makeText(context, "Unable to open $link", Toast.LENGTH_SHORT).show()
+                                        }
+                                    }
+                                )
+                            }
+                            item(contentType = "bodySpacer") {
+                                Spacer(modifier = Modifier.height(16.dp))
+                            }
+                        }
                     }
 
-                    // Stats
-                    Row(
-                        verticalAlignment = Alignment.CenterVertically
-                    ) {
-                        Row(
-                            verticalAlignment = Alignment.CenterVertically
-                        ) {
-                            Text(
-                                text = "↑",
-                                fontSize = 16.sp,
-                                color = Color(0xFFFF9500)
-                            )
-                            Spacer(modifier = Modifier.width(4.dp))
-                            Text(
-                                text = "${post.score}",
-                                fontSize = 14.sp,
-                                fontWeight = FontWeight.Medium,
-                                color = Color(0xFFFF9500)
-                            )
-                        }
+                    item(contentType = "postFooter") {
+                        Column {
+                            // Stats
+                            Row(
+                                verticalAlignment = Alignment.CenterVertically
+                            ) {
+                                Row(
+                                    verticalAlignment = Alignment.CenterVertically
+                                ) {
+                                    Text(
+                                        text = "↑",
+                                        fontSize = 16.sp,
+                                        color = Color(0xFFFF9500)
+                                    )
+                                    Spacer(modifier = Modifier.width(4.dp))
+                                    Text(
+                                        text = item.scoreText,
+                                        fontSize = 14.sp,
+                                        fontWeight = FontWeight.Medium,
+                                        color = Color(0xFFFF9500)
+                                    )
+                                }
 
-                        Spacer(modifier = Modifier.width(16.dp))
+                                Spacer(modifier = Modifier.width(16.dp))
 
-                        Row(
-                            verticalAlignment = Alignment.CenterVertically
-                        ) {
-                            Text(
-                                text = "💬",
-                                fontSize = 14.sp
-                            )
-                            Spacer(modifier = Modifier.width(4.dp))
-                            Text(
-                                text = "${post.num_comments}",
-                                fontSize = 14.sp,
-                                fontWeight = FontWeight.Medium,
-                                color = Color(0xFF8E8E93)
-                            )
-                        }
+                                Row(
+                                    verticalAlignment = Alignment.CenterVertically
+                                ) {
+                                    Text(
+                                        text = "💬",
+                                        fontSize = 14.sp
+                                    )
+                                    Spacer(modifier = Modifier.width(4.dp))
+                                    Text(
+                                        text = item.commentCountText,
+                                        fontSize = 14.sp,
+                                        fontWeight = FontWeight.Medium,
+                                        color = Color(0xFF8E8E93)
+                                    )
+                                }
 
-                        Spacer(modifier = Modifier.weight(1f))
+                                Spacer(modifier = Modifier.weight(1f))
 
-                        if (post.is_video) {
-                            Text(
-                                text = "▶️ Video",
-                                fontSize = 12.sp,
-                                color = Color(0xFF007AFF)
-                            )
+                                if (item.mediaKind == RedditMediaKind.VIDEO) {
+                                    Text(
+                                        text = "▶️ Video",
+                                        fontSize = 12.sp,
+                                        color = Color(0xFF007AFF)
+                                    )
+                                }
+                            }
+
+                            Spacer(modifier = Modifier.height(24.dp))
+
+                            // Action buttons
+                            Row(
+                                modifier = Modifier.fillMaxWidth(),
+                                horizontalArrangement = Arrangement.spacedBy(12.dp)
+                            ) {
+                                Button(
+                                    onClick = {
+                                        val intent = Intent(Intent.ACTION_VIEW, Uri.parse(post.redditUrl))
+                                        context.startActivity(intent)
+                                    },
+                                    modifier = Modifier.weight(1f),
+                                    colors = ButtonDefaults.buttonColors(
+                                        containerColor = Color(0xFF007AFF)
+                                    ),
+                                    shape = RoundedCornerShape(12.dp)
+                                ) {
+                                    Text(
+                                        text = stringResource(R.string.open_in_reddit),
+                                        color = Color.White,
+                                        fontWeight = FontWeight.Medium
+                                    )
+                                }
+
+                                OutlinedButton(
+                                    onClick = {
+                                        val intent = Intent(Intent.ACTION_VIEW, Uri.parse(post.url))
+                                        context.startActivity(intent)
+                                    },
+                                    modifier = Modifier.weight(1f),
+                                    shape = RoundedCornerShape(12.dp),
+                                    colors = ButtonDefaults.outlinedButtonColors(
+                                        contentColor = Color(0xFF007AFF)
+                                    )
+                                ) {
+                                    Text(
+                                        text = stringResource(R.string.view_link),
+                                        fontWeight = FontWeight.Medium
+                                    )
+                                }
+                            }
                         }
                     }
 
-                    Spacer(modifier = Modifier.height(24.dp))
+                    item(contentType = "commentsHeader") {
+                        Text(
+                            text = "Comments",
+                            fontSize = 16.sp,
+                            fontWeight = FontWeight.SemiBold,
+                            color = Color(0xFF1C1C1E),
+                            modifier = Modifier.padding(top = 24.dp, bottom = 8.dp)
+                        )
+                    }
 
-                    // Action buttons
-                    Row(
-                        modifier = Modifier.fillMaxWidth(),
-                        horizontalArrangement = Arrangement.spacedBy(12.dp)
-                    ) {
-                        Button(
-                            onClick = {
-                                val intent = Intent(Intent.ACTION_VIEW, Uri.parse(post.redditUrl))
-                                context.startActivity(intent)
-                            },
-                            modifier = Modifier.weight(1f),
-                            colors = ButtonDefaults.buttonColors(
-                                containerColor = Color(0xFF007AFF)
-                            ),
-                            shape = RoundedCornerShape(12.dp)
-                        ) {
+                    when {
+                        detail.isLoading -> item(contentType = "status") {
+                            Box(
+                                modifier = Modifier
+                                    .fillMaxWidth()
+                                    .padding(24.dp),
+                                contentAlignment = Alignment.Center
+                            ) {
+                                CircularProgressIndicator(color = Color(0xFF007AFF))
+                            }
+                        }
+                        detail.error != null -> item(contentType = "status") {
+                            Row(verticalAlignment = Alignment.CenterVertically) {
+                                Text(
+                                    text = detail.error!!,
+                                    fontSize = 14.sp,
+                                    color = Color(0xFF8E8E93),
+                                    modifier = Modifier.weight(1f)
+                                )
+                                TextButton(onClick = { detailViewModel.retry() }) {
+                                    Text("Retry", color = Color(0xFF007AFF))
+                                }
+                            }
+                        }
+                        detail.rows.isEmpty() -> item(contentType = "status") {
                             Text(
-                                text = stringResource(R.string.open_in_reddit),
-                                color = Color.White,
-                                fontWeight = FontWeight.Medium
+                                text = "No comments yet",
+                                fontSize = 14.sp,
+                                color = Color(0xFF8E8E93)
                             )
                         }
+                    }
 
-                        OutlinedButton(
-                            onClick = {
-                                val intent = Intent(Intent.ACTION_VIEW, Uri.parse(post.url))
-                                context.startActivity(intent)
-                            },
-                            modifier = Modifier.weight(1f),
-                            shape = RoundedCornerShape(12.dp),
-                            colors = ButtonDefaults.outlinedButtonColors(
-                                contentColor = Color(0xFF007AFF)
+                    items(
+                        items = detail.rows,
+                        key = { it.id },
+                        contentType = { if (it.isMore) "more" else "comment" }
+                    ) { row ->
+                        if (row.isMore) {
+                            MoreCommentsRow(
+                                row = row,
+                                onClick = { detailViewModel.expandMore(row.id) }
                             )
-                        ) {
-                            Text(
-                                text = stringResource(R.string.view_link),
-                                fontWeight = FontWeight.Medium
+                        } else {
+                            CommentRow(
+                                row = row,
+                                onClick = { detailViewModel.toggleCollapsed(row.id) }
                             )
                         }
                     }
@@ -300,19 +428,180 @@ fun RedditPostDetailDialog(
     }
 }
 
-private fun formatTime(createdUtc: Double): String {
-    val now = System.currentTimeMillis()
-    val postTime = (createdUtc * 1000).toLong()
-    val diff = now - postTime
-
-    return when {
-        diff < 60 * 1000 -> "now"
-        diff < 60 * 60 * 1000 -> "${diff / (60 * 1000)}m"
-        diff < 24 * 60 * 60 * 1000 -> "${diff / (60 * 60 * 1000)}h"
-        diff < 7 * 24 * 60 * 60 * 1000 -> "${diff / (24 * 60 * 60 * 1000)}d"
-        else -> {
-            val sdf = SimpleDateFormat("MMM d", Locale.getDefault())
-            sdf.format(Date(postTime))
+@Composable
+private fun MarkdownBlockView(
+    block: MarkdownBlock,
+    onLinkClick: (String) -> Unit
+) {
+    val baseStyle = TextStyle(fontSize = 16.sp, color = Color(0xFF1C1C1E), lineHeight = 22.sp)
+    when (block.kind) {
+        MarkdownBlockKind.RULE -> Divider(
+            modifier = Modifier.padding(vertical = 12.dp),
+            color = Color(0xFFE5E5EA)
+        )
+        MarkdownBlockKind.CODE -> Text(
+            text = block.text,
+            style = baseStyle.copy(fontFamily = FontFamily.Monospace, fontSize = 13.sp, lineHeight = 18.sp),
+            modifier = Modifier
+                .fillMaxWidth()
+                .padding(vertical = 4.dp)
+                .background(Color(0xFFF2F2F7), RoundedCornerShape(8.dp))
+                .padding(8.dp)
+        )
+        MarkdownBlockKind.QUOTE -> Row(
+            modifier = Modifier
+                .height(IntrinsicSize.Min)
+                .padding(vertical = 4.dp)
+        ) {
+            repeat(block.level.coerceIn(1, 3)) {
+                Box(
+                    modifier = Modifier
+                        .width(3.dp)
+                        .fillMaxHeight()
+                        .background(Color(0xFFD1D1D6))
+                )
+                Spacer(modifier = Modifier.width(8.dp))
+            }
+            MarkdownText(block.text, baseStyle.copy(color = Color(0xFF636366)), onLinkClick)
+        }
+        MarkdownBlockKind.HEADING -> MarkdownText(
+            text = block.text,
+            style = baseStyle.copy(
+                fontSize = (22 - 2 * block.level).coerceAtLeast(16).sp,
+                fontWeight = FontWeight.Bold,
+                lineHeight = 26.sp
+            ),
+            onLinkClick = onLinkClick,
+            modifier = Modifier.padding(top = 8.dp, bottom = 4.dp)
+        )
+        MarkdownBlockKind.LIST_ITEM -> MarkdownText(
+            text = block.text,
+            style = baseStyle,
+            onLinkClick = onLinkClick,
+            modifier = Modifier.padding(start = 8.dp + 16.dp * block.level, top = 2.dp, bottom = 2.dp)
+        )
+        MarkdownBlockKind.PARAGRAPH -> MarkdownText(
+            text = block.text,
+            style = baseStyle,
+            onLinkClick = onLinkClick,
+            modifier = Modifier.padding(vertical = 4.dp)
+        )
+    }
+}
+
+@Composable
+private fun MarkdownText(
+    text: AnnotatedString,
+    style: TextStyle,
+    onLinkClick: (String) -> Unit,
+    modifier: Modifier = Modifier
+) {
+    // Plain blocks skip the click hit-testing a linked block needs.
+    if (text.getStringAnnotations(RedditMarkdown.URL_TAG, 0, text.length).isEmpty()) {
+        Text(text = text, style = style, modifier = modifier)
+    } else {
+        ClickableText(
+            text = text,
+            style = style,
+            modifier = modifier,
+            onClick = { offset ->
+                text.getStringAnnotations(RedditMarkdown.URL_TAG, offset, offset)
+                    .firstOrNull()
+                    ?.let { onLinkClick(it.item) }
+            }
+        )
+    }
+}
+
+private val COMMENT_INDENT = 12.dp
+// Deeper replies stop indenting so text keeps a readable width.
+private const val MAX_INDENT_DEPTH = 6
+
+@Composable
+private fun CommentRow(
+    row: RedditCommentRow,
+    onClick: () -> Unit
+) {
+    Row(
+        modifier = Modifier
+            .fillMaxWidth()
+            .height(IntrinsicSize.Min)
+            .clickable(onClick = onClick)
+            .padding(start = COMMENT_INDENT * minOf(row.depth, MAX_INDENT_DEPTH))
+            .padding(vertical = 6.dp)
+    ) {
+        if (row.depth > 0) {
+            Box(
+                modifier = Modifier
+                    .width(2.dp)
+                    .fillMaxHeight()
+                    .background(Color(0xFFE5E5EA))
+            )
+            Spacer(modifier = Modifier.width(8.dp))
+        }
+        Column {
+            Row(verticalAlignment = Alignment.CenterVertically) {
+                Text(
+                    text = row.authorLabel,
+                    fontSize = 12.sp,
+                    fontWeight = FontWeight.Medium,
+                    color = Color(0xFF007AFF)
+                )
+                Spacer(modifier = Modifier.width(6.dp))
+                Text(
+                    text = "↑ ${row.scoreText} · ${row.relativeTime}",
+                    fontSize = 12.sp,
+                    color = Color(0xFF8E8E93)
+                )
+            }
+            if (row.isCollapsed) {
+                Text(
+                    text = "${row.replyCount} hidden ${if (row.replyCount == 1) "reply" else "replies"}",
+                    fontSize = 13.sp,
+                    color = Color(0xFF8E8E93)
+                )
+            } else {
+                Text(
+                    text = row.body,
+                    fontSize = 14.sp,
+                    color = Color(0xFF1C1C1E),
+                    lineHeight = 20.sp
+                )
+            }
+        }
+    }
+}
+
+@Composable
+private fun MoreCommentsRow(
+    row: RedditCommentRow,
+    onClick: () -> Unit
+) {
+    Row(
+        modifier = Modifier
+            .fillMaxWidth()
+            .clickable(enabled = !row.isExpanding, onClick = onClick)
+            .padding(start = COMMENT_INDENT * minOf(row.depth, MAX_INDENT_DEPTH) + 10.dp)
+            .padding(vertical = 8.dp),
+        verticalAlignment = Alignment.CenterVertically
+    ) {
+        Text(
+            text = when {
+                row.expandFailed -> "Couldn't load replies. Tap to retry"
+                row.replyCount > 0 -> "Load ${row.replyCount} more replies"
+                else -> "Continue this thread"
+            },
+            fontSize = 13.sp,
+            fontWeight = FontWeight.Medium,
+            color = if (row.expandFailed) Color(0xFFFF3B30) else Color(0xFF007AFF)
+        )
+        if (row.isExpanding) {
+            Spacer(modifier = Modifier.width(8.dp))
+            CircularProgressIndicator(
+                modifier = Modifier.size(12.dp),
+                strokeWidth = 1.5.dp,
+                color = Color(0xFF007AFF)
+            )
         }
     }
 }
@@ -1,9 +1,9 @@
 package com.skipfeed.android.presentation.screens.history
 
+import android.widget.Toast
 import androidx.compose.foundation.background
 import androidx.compose.foundation.layout.*
 import androidx.compose.foundation.lazy.LazyColumn
-import androidx.compose.foundation.lazy.items
 import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.foundation.clickable
 import androidx.compose.material.icons.Icons
@@ -14,6 +14,7 @@ import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.clip
 import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.stringResource
 import androidx.compose.ui.text.font.FontWeight
 import androidx.compose.ui.text.style.TextOverflow
@@ -21,9 +22,13 @@ import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import androidx.hilt.navigation.compose.hiltViewModel
 import androidx.lifecycle.compose.collectAsStateWithLifecycle
+import androidx.paging.LoadState
+import androidx.paging.compose.collectAsLazyPagingItems
+import androidx.paging.compose.itemContentType
+import androidx.paging.compose.itemKey
 import com.skipfeed.android.R
 import com.skipfeed.android.data.model.Platform
-import com.skipfeed.android.data.model.SearchHistoryItem
+import com.skipfeed.android.presentation.HistoryItem
 import com.skipfeed.android.presentation.components.getPlatformIcon
 import java.text.SimpleDateFormat
 import java.util.*
@@ -34,6 +39,16 @@ fun SearchHistoryScreen(
     viewModel: SearchHistoryViewModel = hiltViewModel()
 ) {
     val uiState by viewModel.uiState.collectAsStateWithLifecycle()
+    val hasHistory by viewModel.hasHistory.collectAsStateWithLifecycle()
+    val history = viewModel.history.collectAsLazyPagingItems()
+    val context = LocalContext.current
+
+    LaunchedEffect(uiState.error) {
+        uiState.error?.let { error ->
+            Toast.makeText(context, "Couldn't update history: $error", Toast.LENGTH_SHORT).show()
+            viewModel.clearError()
+        }
+    }
     
     Column(
         modifier = Modifier
@@ -49,11 +64,17 @@ fun SearchHistoryScreen(
                 )
             },
             actions = {
-                if (uiState.searchHistory.isNotEmpty()) {
+                if (hasHistory) {
                     if (uiState.isSelectionMode) {
                         // Selection mode actions
                         Row {
-                            TextButton(onClick = viewModel::selectAllItems) {
+                            TextButton(
+                                onClick = {
+                                    viewModel.selectAllItems(
+                                        history.itemSnapshotList.filterIsInstance<HistoryListEntry.Search>().map { it.key }
+                                    )
+                                }
+                            ) {
                                 Text("Select All", color = Color(0xFF007AFF))
                             }
                             IconButton(onClick = viewModel::deleteSelectedItems) {
@@ -92,7 +113,7 @@ fun SearchHistoryScreen(
             )
         )
         
-        if (uiState.searchHistory.isEmpty()) {
+        if (history.itemCount == 0 && history.loadState.refresh is LoadState.NotLoading) {
             // Empty state
             Box(
                 modifier = Modifier.fillMaxSize(),
@@ -129,14 +150,27 @@ fun SearchHistoryScreen(
                 contentPadding = PaddingValues(16.dp),
                 verticalArrangement = Arrangement.spacedBy(8.dp)
             ) {
-                items(uiState.searchHistory) { historyItem ->
-                    SearchHistoryCard(
-                        historyItem = historyItem,
-                        isSelectionMode = uiState.isSelectionMode,
-                        isSelected = uiState.selectedItems.contains(historyItem.id),
-                        onDeleteClick = { viewModel.deleteHistoryItem(historyItem) },
-                        onSelectionToggle = { viewModel.toggleItemSelection(historyItem.id) }
-                    )
+                items(
+                    count = history.itemCount,
+                    key = history.itemKey { it.key },
+                    contentType = history.itemContentType { it::class }
+                ) { index ->
+                    when (val entry = history[index]) {
+                        null -> Spacer(modifier = Modifier.fillMaxWidth().height(72.dp))
+                        is HistoryListEntry.DayHeader -> Text(
+                            text = entry.label,
+                            fontSize = 14.sp,
+                            fontWeight = FontWeight.SemiBold,
+                            color = Color.Gray
+                        )
+                        is HistoryListEntry.Search -> SearchHistoryCard(
+                            historyItem = entry.item,
+                            isSelectionMode = uiState.isSelectionMode,
+                            isSelected = uiState.selectedItems.contains(entry.key),
+                            onDeleteClick = { viewModel.deleteHistoryItem(entry.key) },
+                            onSelectionToggle = { viewModel.toggleItemSelection(entry.key) }
+                        )
+                    }
                 }
             }
         }
@@ -145,14 +179,14 @@ fun SearchHistoryScreen(
 
 @Composable
 private fun SearchHistoryCard(
-    historyItem: SearchHistoryItem,
+    historyItem: HistoryItem,
     isSelectionMode: Boolean,
     isSelected: Boolean,
     onDeleteClick: () -> Unit,
     onSelectionToggle: () -> Unit,
     modifier: Modifier = Modifier
 ) {
-    val platform = Platform.entries.find { it.name == historyItem.platform } ?: Platform.REDDIT
+    val platform = Platform.entries.find { it.displayName == historyItem.platform } ?: Platform.REDDIT
     val timeFormatter = SimpleDateFormat("MMM dd, yyyy 'at' HH:mm", Locale.getDefault())
     
     Card(
@@ -228,7 +262,7 @@ private fun SearchHistoryCard(
                         fontWeight = FontWeight.Medium
                     )
                     Text(
-                        text = " • ${timeFormatter.format(Date(historyItem.timestamp))}",
+                        text = " • ${timeFormatter.format(Date(historyItem.timestampMillis))}",
                         fontSize = 12.sp,
                         color = Color.Gray
                     )
@@ -2,21 +2,132 @@ package com.skipfeed.android.presentation.screens.history
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
+import androidx.paging.PagingData
+import androidx.paging.cachedIn
+import androidx.paging.insertSeparators
+import androidx.paging.map
+import com.skipfeed.android.data.model.Platform
 import com.skipfeed.android.data.model.SearchHistoryItem
 import com.skipfeed.android.data.repository.SearchRepository
+import com.skipfeed.android.presentation.HistoryItem
+import com.skipfeed.android.presentation.toHistoryItem
 import dagger.hilt.android.lifecycle.HiltViewModel
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.*
 import kotlinx.coroutines.launch
+import java.text.SimpleDateFormat
+import java.util.*
 import javax.inject.Inject
 
 data class SearchHistoryUiState(
-    val searchHistory: List<SearchHistoryItem> = emptyList(),
     val isLoading: Boolean = false,
     val error: String? = null,
     val isSelectionMode: Boolean = false,
-    val selectedItems: Set<String> = emptySet()
+    val selectedItems: Set<String> = emptySet(),
+    // Set by selectAllItems until the selection is changed by hand.
+    val allSelected: Boolean = false
 )
 
+/** What the history list is narrowed to; [platform] and [timeRange] use the screen's labels. */
+data class HistoryFilter(
+    val text: String = "",
+    val platform: String = ALL_PLATFORMS,
+    val timeRange: String = ALL_TIME
+) {
+    companion object {
+        const val ALL_PLATFORMS = "All"
+        const val ALL_TIME = "All Time"
+    }
+}
+
+/** One row of the paged history list: a day header, or a search under it. */
+sealed class HistoryListEntry {
+    abstract val key: String
+
+    data class DayHeader(val dayKey: Long, val label: String) : HistoryListEntry() {
+        override val key: String get() = "day-$dayKey"
+    }
+
+    data class Search(val item: HistoryItem, val dayKey: Long) : HistoryListEntry() {
+        override val key: String get() = item.id
+    }
+}
+
+/**
+ * Local-day boundaries the time filters and day headers are cut at, worked out with one
+ * [Calendar] pass when the day starts rather than per row or per filter change.
+ */
+data class HistoryDayBuckets(
+    val zone: TimeZone,
+    val todayKey: Long,
+    val todayStart: Long,
+    val tomorrowStart: Long,
+    val yesterdayStart: Long,
+    val weekStart: Long,
+    val monthStart: Long
+) {
+    fun isCurrent(nowMillis: Long, zone: TimeZone): Boolean =
+        nowMillis in todayStart until tomorrowStart && zone.hasSameRules(this.zone)
+
+    /** [from, until) for a time filter label, as the History screen defines them. */
+    fun bounds(timeRange: String): Pair<Long, Long> = when (timeRange) {
+        "Today" -> todayStart to Long.MAX_VALUE
+        "Yesterday" -> yesterdayStart to todayStart
+        "This Week" -> weekStart to Long.MAX_VALUE
+        "This Month" -> monthStart to Long.MAX_VALUE
+        else -> 0L to Long.MAX_VALUE
+    }
+
+    companion object {
+        fun at(nowMillis: Long, zone: TimeZone): HistoryDayBuckets {
+            val calendar = Calendar.getInstance(zone).apply {
+                timeInMillis = nowMillis
+                set(Calendar.HOUR_OF_DAY, 0)
+                set(Calendar.MINUTE, 0)
+                set(Calendar.SECOND, 0)
+                set(Calendar.MILLISECOND, 0)
+            }
+            val todayStart = calendar.timeInMillis
+            // Stepped by calendar days so a DST change still lands on midnight.
+            fun dayStart(offset: Int): Long {
+                calendar.timeInMillis = todayStart
+                calendar.add(Calendar.DAY_OF_MONTH, offset)
+                return calendar.timeInMillis
+            }
+            return HistoryDayBuckets(
+                zone = zone,
+                todayKey = dayKey(nowMillis, zone),
+                todayStart = todayStart,
+                tomorrowStart = dayStart(1),
+                yesterdayStart = dayStart(-1),
+                weekStart = dayStart(-7),
+                monthStart = dayStart(-30)
+            )
+        }
+
+        /** Local calendar day number, so neighbouring rows compare without a Calendar each. */
+        fun dayKey(millis: Long, zone: TimeZone): Long {
+            return Math.floorDiv(millis + zone.getOffset(millis), DAY_MILLIS)
+        }
+
+        private const val DAY_MILLIS = 24 * 60 * 60 * 1000L
+    }
+}
+
+/**
+ * Search history for the History screen, paged out of Room.
+ *
+ * Only the window around what is on screen is ever loaded, and an insert reloads that
+ * window rather than the whole table. Day headers are inserted between neighbouring rows
+ * of the loaded pages, so they cost nothing for pages that were never loaded.
+ *
+ * Typed text goes to the full-text index once the user pauses, and its matches are listed
+ * by frecency rather than under day headers. Platform, time range and text all become
+ * one indexed query; the time range uses [HistoryDayBuckets] that only change when the
+ * local day does, at which point the list is re-queried so "Today" moves with it.
+ */
 @HiltViewModel
 class SearchHistoryViewModel @Inject constructor(
     private val searchRepository: SearchRepository
@@ -25,27 +136,103 @@ class SearchHistoryViewModel @Inject constructor(
     private val _uiState = MutableStateFlow(SearchHistoryUiState())
     val uiState: StateFlow<SearchHistoryUiState> = _uiState.asStateFlow()
 
-    init {
-        loadSearchHistory()
-    }
+    private val _filter = MutableStateFlow(HistoryFilter())
+    val filter: StateFlow<HistoryFilter> = _filter.asStateFlow()
 
-    private fun loadSearchHistory() {
-        viewModelScope.launch {
-            searchRepository.getSearchHistory().collect { history ->
-                _uiState.update { it.copy(searchHistory = history) }
+    // Whether there is any history at all, regardless of the filter.
+    val hasHistory: StateFlow<Boolean> = searchRepository.hasSearchHistory()
+        .stateIn(viewModelScope, SharingStarted.WhileSubscribed(5_000), false)
+
+    // The filter the list is queried with: chips apply at once, typing once it pauses, and
+    // clearing the text at once.
+    @OptIn(FlowPreview::class)
+    private val queryFilter: Flow<HistoryFilter> = combine(
+        _filter.map { it.platform to it.timeRange }.distinctUntilChanged(),
+        _filter.map { it.text.trim() }
+            .distinctUntilChanged()
+            .debounce { text -> if (text.isEmpty()) 0L else TEXT_DEBOUNCE_MILLIS }
+    ) { (platform, timeRange), text ->
+        HistoryFilter(text, platform, timeRange)
+    }.distinctUntilChanged()
+
+    // Emits the current day's buckets, and again once the local day or time zone changes.
+    // Checked every minute rather than slept until midnight, since delay() stops counting
+    // while the device sleeps and would wake late.
+    private val dayBuckets: Flow<HistoryDayBuckets> = flow {
+        var current = HistoryDayBuckets.at(System.currentTimeMillis(), TimeZone.getDefault())
+        emit(current)
+        while (true) {
+            delay(DAY_CHECK_INTERVAL_MILLIS)
+            val nowMillis = System.currentTimeMillis()
+            val zone = TimeZone.getDefault()
+            if (!current.isCurrent(nowMillis, zone)) {
+                current = HistoryDayBuckets.at(nowMillis, zone)
+                emit(current)
             }
         }
     }
 
-    fun deleteHistoryItem(item: SearchHistoryItem) {
+    @OptIn(ExperimentalCoroutinesApi::class)
+    val history: Flow<PagingData<HistoryListEntry>> = combine(queryFilter, dayBuckets) { filter, buckets ->
+        filter to buckets
+    }
+        .flatMapLatest { (filter, buckets) -> pagedEntries(filter, buckets) }
+        .cachedIn(viewModelScope)
+
+    fun updateText(text: String) {
+        _filter.update { it.copy(text = text) }
+    }
+
+    fun updatePlatform(platform: String) {
+        _filter.update { it.copy(platform = platform) }
+    }
+
+    fun updateTimeRange(timeRange: String) {
+        _filter.update { it.copy(timeRange = timeRange) }
+    }
+
+    private fun pagedEntries(filter: HistoryFilter, buckets: HistoryDayBuckets): Flow<PagingData<HistoryListEntry>> {
+        val zone = buckets.zone
+        val todayKey = buckets.todayKey
+        val (fromMillis, untilMillis) = buckets.bounds(filter.timeRange)
+        val platform = Platform.entries.firstOrNull { it.displayName == filter.platform }
+        // Used only from the single coroutine that applies these transforms.
+        val timeFormat = SimpleDateFormat("h:mm:ss a", Locale.getDefault())
+        val dateFormat = SimpleDateFormat("EEEE, MMM d", Locale.getDefault())
+
+        val rows = searchRepository.pageSearchHistory(platform, filter.text, fromMillis, untilMillis)
+        fun entry(item: SearchHistoryItem) =
+            HistoryListEntry.Search(item.toHistoryItem(timeFormat), HistoryDayBuckets.dayKey(item.timestamp, zone))
+
+        // Ranked matches are not in time order, so headers would only split them up.
+        if (filter.text.isNotEmpty()) {
+            return rows.map { page -> page.map<SearchHistoryItem, HistoryListEntry> { entry(it) } }
+        }
+
+        return rows.map { page ->
+            page
+                .map { entry(it) }
+                .insertSeparators { before: HistoryListEntry.Search?, after: HistoryListEntry.Search? ->
+                    if (after == null || before?.dayKey == after.dayKey) {
+                        null
+                    } else {
+                        val label = when (after.dayKey) {
+                            todayKey -> "Today"
+                            todayKey - 1 -> "Yesterday"
+                            else -> dateFormat.format(Date(after.item.timestampMillis))
+                        }
+                        HistoryListEntry.DayHeader(after.dayKey, label)
+                    }
+                }
+        }
+    }
+
+    fun deleteHistoryItem(id: String) {
         viewModelScope.launch {
             try {
-                // Note: You'd need to add a delete method to SearchRepository
-                // For now, we'll implement clearing all history
-                // In a full implementation, you'd add a delete single item method
-                android.util.Log.d("SearchHistoryViewModel", "Delete item requested: ${item.query}")
+                searchRepository.deleteSearchHistory(listOf(id))
             } catch (e: Exception) {
-                _uiState.update { it.copy(error = e.message) }
+                _uiState.update { it.copy(error = e.message ?: e.toString()) }
             }
         }
     }
@@ -55,16 +242,22 @@ class SearchHistoryViewModel @Inject constructor(
             try {
                 searchRepository.clearSearchHistory()
             } catch (e: Exception) {
-                _uiState.update { it.copy(error = e.message) }
+                _uiState.update { it.copy(error = e.message ?: e.toString()) }
             }
         }
     }
 
+    /** Called once the screen has shown [SearchHistoryUiState.error]. */
+    fun clearError() {
+        _uiState.update { it.copy(error = null) }
+    }
+
     fun toggleSelectionMode() {
         _uiState.update {
             it.copy(
                 isSelectionMode = !it.isSelectionMode,
-                selectedItems = emptySet()
+                selectedItems = emptySet(),
+                allSelected = false
             )
         }
     }
@@ -76,40 +269,43 @@ class SearchHistoryViewModel @Inject constructor(
             } else {
                 currentState.selectedItems + itemId
             }
-            currentState.copy(selectedItems = newSelectedItems)
+            currentState.copy(selectedItems = newSelectedItems, allSelected = false)
         }
     }
 
-    fun selectAllItems() {
+    /** Selects [ids], the searches currently loaded into the list. */
+    fun selectAllItems(ids: Collection<String>) {
         _uiState.update { currentState ->
-            currentState.copy(
-                selectedItems = currentState.searchHistory.map { it.id }.toSet()
-            )
+            currentState.copy(selectedItems = ids.toSet(), allSelected = true)
         }
     }
 
     fun clearSelection() {
-        _uiState.update { it.copy(selectedItems = emptySet()) }
+        _uiState.update { it.copy(selectedItems = emptySet(), allSelected = false) }
     }
 
     fun deleteSelectedItems() {
         viewModelScope.launch {
             try {
                 val currentState = _uiState.value
-                // For now, we'll implement this as clearing all history
-                // In a full implementation, you'd delete only selected items
                 if (currentState.selectedItems.isNotEmpty()) {
-                    searchRepository.clearSearchHistory()
+                    searchRepository.deleteSearchHistory(currentState.selectedItems)
                     _uiState.update {
                         it.copy(
                             isSelectionMode = false,
-                            selectedItems = emptySet()
+                            selectedItems = emptySet(),
+                            allSelected = false
                         )
                     }
                 }
             } catch (e: Exception) {
-                _uiState.update { it.copy(error = e.message) }
+                _uiState.update { it.copy(error = e.message ?: e.toString()) }
             }
         }
     }
+
+    companion object {
+        private const val TEXT_DEBOUNCE_MILLIS = 250L
+        private const val DAY_CHECK_INTERVAL_MILLIS = 60_000L
+    }
 }
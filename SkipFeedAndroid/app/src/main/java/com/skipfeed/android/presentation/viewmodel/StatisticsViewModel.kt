@@ -2,7 +2,13 @@ package com.skipfeed.android.presentation.viewmodel
 
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.viewModelScope
-import com.skipfeed.android.data.model.SearchHistoryItem
+import com.skipfeed.android.data.api.CallTiming
+import com.skipfeed.android.data.api.LatencyStats
+import com.skipfeed.android.data.api.NetworkTimingLog
+import com.skipfeed.android.data.cache.CacheStats
+import com.skipfeed.android.data.cache.ImageLoadStats
+import com.skipfeed.android.data.cache.ImageStats
+import com.skipfeed.android.data.model.TimeOfDayCounts
 import com.skipfeed.android.data.model.UsageAnalytics
 import com.skipfeed.android.data.repository.SearchRepository
 import com.skipfeed.android.data.repository.UsageAnalyticsRepository
@@ -13,22 +19,51 @@ import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.launch
 import javax.inject.Inject
 
+/** Snapshot of the network and cache instrumentation shown in the debug section. */
+data class NetworkDebugInfo(
+    val timings: List<CallTiming>,
+    val imageStats: ImageStats,
+    val pageCacheStats: CacheStats,
+    val coalescedCalls: Long,
+    val searchLatency: LatencyStats
+)
+
 @HiltViewModel
 class StatisticsViewModel @Inject constructor(
     private val usageAnalyticsRepository: UsageAnalyticsRepository,
-    private val searchRepository: SearchRepository
+    private val searchRepository: SearchRepository,
+    private val networkTimingLog: NetworkTimingLog,
+    private val imageLoadStats: ImageLoadStats
 ) : ViewModel() {
 
     private val _usageAnalytics = MutableStateFlow(UsageAnalytics())
     val usageAnalytics: StateFlow<UsageAnalytics> = _usageAnalytics.asStateFlow()
 
-    private val _searchHistory = MutableStateFlow<List<SearchHistoryItem>>(emptyList())
-    val searchHistory: StateFlow<List<SearchHistoryItem>> = _searchHistory.asStateFlow()
+    private val _timeOfDay = MutableStateFlow(TimeOfDayCounts())
+    val timeOfDay: StateFlow<TimeOfDayCounts> = _timeOfDay.asStateFlow()
+
+    private val _networkDebug = MutableStateFlow<NetworkDebugInfo?>(null)
+    val networkDebug: StateFlow<NetworkDebugInfo?> = _networkDebug.asStateFlow()
 
     init {
         loadData()
     }
 
+    fun refreshNetworkDebug() {
+        _networkDebug.value = NetworkDebugInfo(
+            timings = networkTimingLog.snapshot(),
+            imageStats = imageLoadStats.snapshot(),
+            pageCacheStats = searchRepository.redditCacheStats(),
+            coalescedCalls = searchRepository.redditCoalescedCalls(),
+            searchLatency = searchRepository.redditLatencyStats()
+        )
+    }
+
+    fun clearNetworkTimings() {
+        networkTimingLog.clear()
+        refreshNetworkDebug()
+    }
+
     private fun loadData() {
         viewModelScope.launch {
             // Load usage analytics
@@ -38,9 +73,9 @@ class StatisticsViewModel @Inject constructor(
         }
 
         viewModelScope.launch {
-            // Load search history
-            searchRepository.getSearchHistory().collect { history ->
-                _searchHistory.value = history
+            // Searches by time of day, aggregated in the database
+            searchRepository.getTimeOfDayCounts().collect { counts ->
+                _timeOfDay.value = counts
             }
         }
     }